@@ -0,0 +1,158 @@
+package se325.example01.basictcp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Describes the multiply protocol spoken by {@link Server} and {@link NioServer}, and implements the server side of it
+ * over blocking sockets.
+ * <p>
+ * There are two flavours of the protocol:
+ * <ul>
+ *     <li><b>Legacy</b>: The client sends two ints, the server replies with their product and closes the connection.
+ *     This is what {@link Client} speaks.</li>
+ *     <li><b>Framed</b>: The client opens the connection by sending {@link #PREAMBLE}, and can then send any number of
+ *     frames, without waiting for replies in between (i.e. the requests may be <em>pipelined</em>). Each frame starts
+ *     with a one-byte header, made up of a frame type and a {@link #KEEP_ALIVE} flag. Replies are sent in the same order
+ *     as the frames they answer. If a frame doesn't have the {@link #KEEP_ALIVE} flag set, the server closes the
+ *     connection once it has replied to it. A {@link #TYPE_BATCH} frame carries any number of pairs of operands, and is
+ *     answered with all of their products at once. This is what {@link PipelinedClient} speaks.</li>
+ * </ul>
+ * The server tells the two apart by the first int it receives. This does mean that a legacy client can't ask for
+ * {@link #PREAMBLE} to be used as its first operand.
+ */
+public final class MultiplyProtocol {
+
+    /** Sent once at the start of a connection to switch it to the framed protocol. The bytes spell "MUL*". */
+    public static final int PREAMBLE = 0x4D554C2A;
+
+    /** Set in a frame header if the connection should stay open after the frame has been answered. */
+    public static final int KEEP_ALIVE = 0x80;
+
+    /** Masks off the frame type in a frame header. */
+    public static final int TYPE_MASK = 0x7F;
+
+    /** Frame type: two ints follow the header; the reply is their product. */
+    public static final int TYPE_MULTIPLY = 0x01;
+
+    /** Number of bytes in a {@link #TYPE_MULTIPLY} frame, including its header. */
+    public static final int MULTIPLY_FRAME_SIZE = 9;
+
+    /**
+     * Frame type: a count <code>n</code> follows the header, then <code>n</code> ints <code>x[]</code>, then
+     * <code>n</code> ints <code>y[]</code>. The reply is the <code>n</code> ints <code>x[i] * y[i]</code>.
+     */
+    public static final int TYPE_BATCH = 0x02;
+
+    /** Number of bytes in a {@link #TYPE_BATCH} frame before the operands start (the header and the count). */
+    public static final int BATCH_HEADER_SIZE = 5;
+
+    /** The largest count a {@link #TYPE_BATCH} frame may have. Larger jobs should be split over several frames. */
+    public static final int MAX_BATCH_SIZE = 1 << 20;
+
+    private MultiplyProtocol() {
+    }
+
+    /**
+     * Serves a single connection until the client is done with it.
+     *
+     * @param clientConnection the connection to serve. It is not closed by this method.
+     */
+    public static void serve(Socket clientConnection) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(clientConnection.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(clientConnection.getOutputStream()));
+
+        int first = in.readInt();
+
+        /* Legacy client: read the second number, send back the product, and we're done. */
+        if (first != PREAMBLE) {
+            int y = in.readInt();
+            out.writeInt(first * y);
+            out.flush();
+            return;
+        }
+
+        /* Framed client: keep answering frames until told to stop, or the client hangs up. */
+        byte[] batchBytes = new byte[0];
+        int[] xs = new int[0];
+        int[] ys = new int[0];
+
+        boolean keepAlive = true;
+        while (keepAlive) {
+            int header = in.read();
+            if (header < 0) {
+                break;
+            }
+
+            int type = header & TYPE_MASK;
+            keepAlive = (header & KEEP_ALIVE) != 0;
+
+            if (type == TYPE_MULTIPLY) {
+                int x = in.readInt();
+                int y = in.readInt();
+                out.writeInt(x * y);
+
+            } else if (type == TYPE_BATCH) {
+                int count = checkBatchSize(in.readInt());
+
+                /* Grab all the operands in one go, then unpack them. The arrays are reused for later batches. */
+                if (batchBytes.length < count * 8) {
+                    batchBytes = new byte[count * 8];
+                    xs = new int[count];
+                    ys = new int[count];
+                }
+                in.readFully(batchBytes, 0, count * 8);
+                IntBuffer operands = ByteBuffer.wrap(batchBytes).asIntBuffer();
+                operands.get(xs, 0, count);
+                operands.get(ys, 0, count);
+
+                /* Compute the products, and send them all back with a single write. */
+                multiplyAll(xs, ys, xs, count);
+                operands.clear();
+                operands.put(xs, 0, count);
+                out.write(batchBytes, 0, count * 4);
+
+            } else {
+                throw new IOException("Unknown frame type: " + type);
+            }
+
+            /* Only flush once we've answered everything the client has pipelined so far. */
+            if (in.available() == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Checks the count from a {@link #TYPE_BATCH} frame.
+     *
+     * @return the count, if it is valid.
+     * @throws IOException if it isn't.
+     */
+    public static int checkBatchSize(int count) throws IOException {
+        if (count < 0 || count > MAX_BATCH_SIZE) {
+            throw new IOException("Invalid batch size: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Sets <code>products[i] = xs[i] * ys[i]</code> for every <code>i</code> less than <code>count</code>.
+     * <code>products</code> may be the same array as <code>xs</code> or <code>ys</code>.
+     * <p>
+     * This is deliberately a plain counted loop over int arrays, with no method calls or branches in its body - that's
+     * the shape of loop which HotSpot's JIT compiler turns into SIMD instructions, multiplying several pairs at once.
+     */
+    public static void multiplyAll(int[] xs, int[] ys, int[] products, int count) {
+        for (int i = 0; i < count; i++) {
+            products[i] = xs[i] * ys[i];
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package se325.example01.basictcp;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A non-blocking version of {@link Server}, built on {@link Selector} and {@link SocketChannel}.
+ * <p>
+ * Rather than serving one client at a time on the main thread, connections are accepted on the main thread and then
+ * dealt out to a small, fixed number of event loops. Each event loop multiplexes all of its connections on a single
+ * thread, so one slow client never stalls any other. The server speaks both the legacy and the framed flavours of the
+ * {@link MultiplyProtocol}, so both {@link Client} and {@link PipelinedClient} work against it.
+ * <p>
+ * Usage: <code>NioServer [eventLoopCount]</code>. The number of event loops defaults to the number of available
+ * processors.
+ */
+public class NioServer {
+
+    /** Number of bytes in a legacy request (two ints). */
+    private static final int REQUEST_SIZE = 8;
+
+    /** Number of bytes in a response (one int). */
+    private static final int RESPONSE_SIZE = 4;
+
+    /** Size of each connection's input and output buffers. Bounds how far ahead a client can pipeline requests. */
+    private static final int BUFFER_SIZE = 1024;
+
+    /** How many not-yet-accepted connections the OS should queue for us. */
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    public static void main(String[] args) {
+        int eventLoopCount = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(0), ACCEPT_BACKLOG);
+
+            InetAddress serverHost = InetAddress.getLocalHost();
+            System.out.println("Server destination: " + serverHost.getHostAddress() + ":" + serverChannel.socket().getLocalPort());
+
+            EventLoop[] eventLoops = new EventLoop[eventLoopCount];
+            for (int i = 0; i < eventLoops.length; i++) {
+                eventLoops[i] = new EventLoop();
+                new Thread(eventLoops[i], "nio-event-loop-" + i).start();
+            }
+
+            /* Accept connections on this thread, and hand them to the event loops round-robin. */
+            int next = 0;
+            while (true) {
+                SocketChannel clientChannel = serverChannel.accept();
+                eventLoops[next].register(clientChannel);
+                next = (next + 1) % eventLoops.length;
+            }
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A single selector thread, serving any number of connections.
+     */
+    private static class EventLoop implements Runnable {
+
+        private final Selector selector;
+
+        /** Channels handed to us by the accepting thread, which haven't yet been registered with our selector. */
+        private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Connection state (and its direct buffers) from closed connections, kept for reuse. Only ever touched by
+         * this event loop's thread.
+         */
+        private final Deque<Connection> freeConnections = new ArrayDeque<>();
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Called from the accepting thread. Registration itself must happen on the event loop thread, so we just queue
+         * the channel and wake the selector up.
+         */
+        void register(SocketChannel channel) {
+            pendingChannels.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    registerPendingChannels();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(key);
+                    }
+
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        private void registerPendingChannels() {
+            SocketChannel channel;
+            while ((channel = pendingChannels.poll()) != null) {
+                Connection connection = freeConnections.isEmpty() ? new Connection() : freeConnections.pop();
+                try {
+                    channel.configureBlocking(false);
+                    connection.open(channel, channel.register(selector, SelectionKey.OP_READ, connection));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    closeQuietly(channel);
+                    freeConnections.push(connection);
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    connection.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.write();
+                }
+            } catch (IOException e) {
+                connection.close();
+            }
+
+            if (connection.isClosed()) {
+                freeConnections.push(connection);
+            }
+        }
+    }
+
+    /**
+     * The per-connection state machine. Input is accumulated until it holds one or more complete requests, which are
+     * answered in order into the output buffer. Pipelined requests are therefore answered with as few writes as
+     * possible. If the output buffer fills up, we stop consuming input until the client has read some of its replies.
+     * <p>
+     * Batch frames are too big for the input buffer, so their operands are read into a separate batch buffer instead.
+     * Once it is full, the products are computed and written back out of that same buffer, before any more frames are
+     * processed.
+     * <p>
+     * The buffers are direct, so the kernel can copy straight into and out of them, and are reused for every connection
+     * this object serves.
+     */
+    private static class Connection {
+
+        private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /** Holds the operands, and then the products, of the current batch frame. Grown as needed. */
+        private ByteBuffer batch;
+        private int[] xs = new int[0];
+        private int[] ys = new int[0];
+        private BatchState batchState;
+        private int batchCount;
+
+        private SocketChannel channel;
+        private SelectionKey key;
+
+        /** Whether we've seen the first int yet, and if so, whether it was {@link MultiplyProtocol#PREAMBLE}. */
+        private boolean handshakeDone;
+        private boolean framed;
+
+        /** Set once the client has asked us to hang up once we've answered it. */
+        private boolean hangUpAfterReply;
+
+        /** Set once the client has closed its end of the connection. */
+        private boolean clientDone;
+
+        void open(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+            in.clear();
+            out.clear();
+            batchState = BatchState.NONE;
+            handshakeDone = false;
+            framed = false;
+            hangUpAfterReply = false;
+            clientDone = false;
+        }
+
+        boolean isClosed() {
+            return channel == null;
+        }
+
+        void read() throws IOException {
+            if (channel.read(batchState == BatchState.READING ? batch : in) < 0) {
+                clientDone = true;
+            }
+            advance();
+        }
+
+        void write() throws IOException {
+            advance();
+        }
+
+        /**
+         * Answers as many buffered requests as we can, and writes as much output as the socket will take. Then decides
+         * whether we next need to wait for more input, wait for the socket to drain, or close the connection.
+         */
+        private void advance() throws IOException {
+            boolean progress;
+            do {
+                in.flip();
+                progress = process();
+                in.compact();
+
+                flush();
+            } while (progress && !hasPendingOutput());
+
+            if (hasPendingOutput()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (clientDone || (hangUpAfterReply && batchState == BatchState.NONE)) {
+                close();
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private boolean hasPendingOutput() {
+            return out.position() > 0 || batchState == BatchState.WRITING;
+        }
+
+        /** Writes out as much of the pending output as the socket will take, in the order it was produced. */
+        private void flush() throws IOException {
+            if (out.position() > 0) {
+                out.flip();
+                channel.write(out);
+                out.compact();
+            }
+
+            if (out.position() == 0 && batchState == BatchState.WRITING) {
+                channel.write(batch);
+                if (!batch.hasRemaining()) {
+                    batchState = BatchState.NONE;
+                }
+            }
+        }
+
+        /**
+         * Consumes complete requests from the input buffer (which must be ready for reading), appending the replies to
+         * the output buffer.
+         *
+         * @return whether any requests were consumed.
+         */
+        private boolean process() throws IOException {
+            boolean progress = false;
+
+            if (!handshakeDone) {
+                if (in.remaining() < Integer.BYTES) {
+                    return false;
+                }
+
+                if (in.getInt(in.position()) == MultiplyProtocol.PREAMBLE) {
+                    in.getInt();
+                    framed = true;
+                    progress = true;
+
+                } else {
+                    if (in.remaining() < REQUEST_SIZE) {
+                        return false;
+                    }
+
+                    /* Legacy client: read numbers to multiply, then send back the product and hang up. */
+                    int x = in.getInt();
+                    int y = in.getInt();
+                    out.putInt(x * y);
+                    hangUpAfterReply = true;
+                    progress = true;
+                }
+                handshakeDone = true;
+            }
+
+            /* Framed client: answer frames until we run out of input, or room for the replies. */
+            while (framed && !hangUpAfterReply && batchState == BatchState.NONE && in.hasRemaining()) {
+
+                int header = in.get(in.position());
+                int type = header & MultiplyProtocol.TYPE_MASK;
+
+                if (type == MultiplyProtocol.TYPE_MULTIPLY) {
+                    if (in.remaining() < MultiplyProtocol.MULTIPLY_FRAME_SIZE || out.remaining() < RESPONSE_SIZE) {
+                        break;
+                    }
+                    in.get();
+                    int x = in.getInt();
+                    int y = in.getInt();
+                    out.putInt(x * y);
+
+                } else if (type == MultiplyProtocol.TYPE_BATCH) {
+                    if (in.remaining() < MultiplyProtocol.BATCH_HEADER_SIZE) {
+                        break;
+                    }
+                    in.get();
+                    startBatch(MultiplyProtocol.checkBatchSize(in.getInt()));
+
+                } else {
+                    throw new IOException("Unknown frame type: " + type);
+                }
+
+                if ((header & MultiplyProtocol.KEEP_ALIVE) == 0) {
+                    hangUpAfterReply = true;
+                }
+                progress = true;
+            }
+
+            /* Any input left over after a batch header belongs to that batch. */
+            if (batchState == BatchState.READING) {
+                if (in.hasRemaining() && batch.hasRemaining()) {
+                    ByteBuffer operands = in.duplicate();
+                    operands.limit(in.position() + Math.min(in.remaining(), batch.remaining()));
+                    batch.put(operands);
+                    in.position(operands.position());
+                }
+
+                if (!batch.hasRemaining()) {
+                    finishBatch();
+                    progress = true;
+                }
+            }
+
+            return progress;
+        }
+
+        private void startBatch(int count) {
+            int size = count * 8;
+            if (batch == null || batch.capacity() < size) {
+                batch = ByteBuffer.allocateDirect(size);
+                xs = new int[count];
+                ys = new int[count];
+            }
+            batch.clear();
+            batch.limit(size);
+            batchCount = count;
+            batchState = BatchState.READING;
+        }
+
+        /** Computes the products of the batch operands, and leaves them in the batch buffer ready to be written. */
+        private void finishBatch() {
+            batch.flip();
+            IntBuffer operands = batch.asIntBuffer();
+            operands.get(xs, 0, batchCount);
+            operands.get(ys, 0, batchCount);
+
+            MultiplyProtocol.multiplyAll(xs, ys, xs, batchCount);
+
+            operands.clear();
+            operands.put(xs, 0, batchCount);
+            batch.clear();
+            batch.limit(batchCount * 4);
+            batchState = BatchState.WRITING;
+        }
+
+        void close() {
+            if (channel == null) {
+                return;
+            }
+            key.cancel();
+            closeQuietly(channel);
+            channel = null;
+            key = null;
+
+            /* Don't let the free list hang on to the memory from huge batches. */
+            if (batch != null && batch.capacity() > BUFFER_SIZE * 64) {
+                batch = null;
+                xs = new int[0];
+                ys = new int[0];
+            }
+        }
+    }
+
+    private enum BatchState {
+        NONE, READING, WRITING
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
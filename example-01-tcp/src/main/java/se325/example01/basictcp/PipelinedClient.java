@@ -0,0 +1,254 @@
+package se325.example01.basictcp;
+
+import se325.util.Keyboard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A client for the framed flavour of the {@link MultiplyProtocol}. A single connection is kept open for any number of
+ * multiplications, and requests are pipelined: {@link #multiply(int, int)} sends its request and returns straight away,
+ * without waiting for the reply. Replies are read on a background thread, and used to complete the returned futures in
+ * the order the requests were sent.
+ */
+public class PipelinedClient implements AutoCloseable {
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+
+    /** Requests which have been sent but not yet answered, oldest first. */
+    private final Queue<PendingReply> pending = new ConcurrentLinkedQueue<>();
+
+    private final Thread replyReader;
+
+    /** Both guarded by {@link #out}. */
+    private boolean closed;
+    private boolean replyReaderDone;
+
+    public PipelinedClient(InetAddress serverAddress, int serverPort) throws IOException {
+        this.socket = new Socket(serverAddress, serverPort);
+        this.socket.setTcpNoDelay(true);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        out.writeInt(MultiplyProtocol.PREAMBLE);
+
+        this.replyReader = new Thread(this::readReplies, "pipelined-client-reader");
+        this.replyReader.setDaemon(true);
+        this.replyReader.start();
+    }
+
+    /**
+     * Asks the server to multiply two numbers.
+     *
+     * @return a future which will be completed with the product once the server replies.
+     */
+    public CompletableFuture<Integer> multiply(int x, int y) {
+        ByteBuffer frame = ByteBuffer.allocate(MultiplyProtocol.MULTIPLY_FRAME_SIZE);
+        frame.put((byte) (MultiplyProtocol.TYPE_MULTIPLY | MultiplyProtocol.KEEP_ALIVE));
+        frame.putInt(x);
+        frame.putInt(y);
+
+        PendingReply reply = new PendingReply(new int[1], 0, 1);
+        send(frame, reply);
+        return reply.future.thenApply(products -> products[0]);
+    }
+
+    /**
+     * Asks the server to multiply each <code>xs[i]</code> by <code>ys[i]</code>. The pairs are sent in as few batch
+     * frames as possible (each holding up to {@link MultiplyProtocol#MAX_BATCH_SIZE} pairs), rather than one frame per
+     * pair.
+     *
+     * @return a future which will be completed with all the products once the server has replied to every batch.
+     */
+    public CompletableFuture<int[]> multiplyAll(int[] xs, int[] ys) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("xs and ys must be the same length");
+        }
+
+        int[] products = new int[xs.length];
+        List<CompletableFuture<int[]>> batches = new ArrayList<>();
+
+        int offset = 0;
+        while (offset < xs.length) {
+            int count = Math.min(xs.length - offset, MultiplyProtocol.MAX_BATCH_SIZE);
+
+            ByteBuffer frame = ByteBuffer.allocate(MultiplyProtocol.BATCH_HEADER_SIZE + count * 8);
+            frame.put((byte) (MultiplyProtocol.TYPE_BATCH | MultiplyProtocol.KEEP_ALIVE));
+            frame.putInt(count);
+            IntBuffer operands = frame.asIntBuffer();
+            operands.put(xs, offset, count);
+            operands.put(ys, offset, count);
+            frame.position(frame.capacity());
+
+            PendingReply reply = new PendingReply(products, offset, count);
+            send(frame, reply);
+            batches.add(reply.future);
+
+            offset += count;
+        }
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(v -> products);
+    }
+
+    /**
+     * Sends a complete frame (which must have been filled but not yet flipped) to the server, and queues up the reply
+     * we're expecting for it.
+     */
+    private void send(ByteBuffer frame, PendingReply reply) {
+
+        /* The reply must be queued in the same order as its request is sent, so that they match up. */
+        synchronized (out) {
+            if (closed || replyReaderDone) {
+                reply.future.completeExceptionally(new IOException("Client is closed"));
+                return;
+            }
+
+            pending.add(reply);
+            try {
+                out.write(frame.array(), 0, frame.position());
+                out.flush();
+            } catch (IOException e) {
+                pending.remove(reply);
+                reply.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void readReplies() {
+        byte[] replyBytes = new byte[0];
+        try {
+            while (true) {
+
+                /* Wait for a reply to start arriving - its request must have been queued by then. */
+                int first = in.read();
+                if (first < 0) {
+                    break;
+                }
+
+                PendingReply reply = pending.remove();
+                int size = reply.count * 4;
+                if (replyBytes.length < size) {
+                    replyBytes = new byte[size];
+                }
+                replyBytes[0] = (byte) first;
+                in.readFully(replyBytes, 1, size - 1);
+
+                ByteBuffer.wrap(replyBytes, 0, size).asIntBuffer().get(reply.products, reply.offset, reply.count);
+                reply.future.complete(reply.products);
+            }
+        } catch (EOFException e) {
+            // The server has hung up mid-reply; anything still outstanding is failed below.
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        /* Once this is set, no more replies will be queued, so we can safely fail the ones that are left. */
+        synchronized (out) {
+            replyReaderDone = true;
+        }
+
+        PendingReply unanswered;
+        while ((unanswered = pending.poll()) != null) {
+            unanswered.future.completeExceptionally(new IOException("Connection closed before a reply was received"));
+        }
+    }
+
+    /**
+     * Stops sending requests, waits for the server to answer any which are still outstanding, then closes the
+     * connection.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (out) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            out.flush();
+            socket.shutdownOutput();
+        }
+
+        try {
+            replyReader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            socket.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+
+            InetAddress serverAddress = InetAddress.getByName(Keyboard.prompt("Server address:"));
+            int serverPort = Integer.parseInt(Keyboard.prompt("Server port:"));
+            int count = Integer.parseInt(Keyboard.prompt("How many multiplications?"));
+
+            try (PipelinedClient client = new PipelinedClient(serverAddress, serverPort)) {
+
+                /* Send all the requests up front, then wait for the replies. */
+                Random random = new Random();
+                List<CompletableFuture<Integer>> results = new ArrayList<>();
+                int[][] operands = new int[count][2];
+                for (int i = 0; i < count; i++) {
+                    operands[i][0] = random.nextInt(1000);
+                    operands[i][1] = random.nextInt(1000);
+                    results.add(client.multiply(operands[i][0], operands[i][1]));
+                }
+
+                for (int i = 0; i < count; i++) {
+                    System.out.println(operands[i][0] + " * " + operands[i][1] + " = " + results.get(i).join());
+                }
+
+                /* Now send the same multiplications again, this time as a batch. */
+                int[] xs = new int[count];
+                int[] ys = new int[count];
+                for (int i = 0; i < count; i++) {
+                    xs[i] = operands[i][0];
+                    ys[i] = operands[i][1];
+                }
+                int[] products = client.multiplyAll(xs, ys).join();
+                System.out.println("Batch of " + products.length + " products received");
+
+            }
+
+        } catch (NumberFormatException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A reply we're expecting from the server: <code>count</code> ints, to be stored into <code>products</code> starting
+     * at <code>offset</code>.
+     */
+    private static class PendingReply {
+        private final int[] products;
+        private final int offset;
+        private final int count;
+        private final CompletableFuture<int[]> future = new CompletableFuture<>();
+
+        PendingReply(int[] products, int offset, int count) {
+            this.products = products;
+            this.offset = offset;
+            this.count = count;
+        }
+    }
+}
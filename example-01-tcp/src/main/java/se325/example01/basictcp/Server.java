@@ -1,38 +1,46 @@
 package se325.example01.basictcp;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.Executor;
 
+/**
+ * Usage: <code>Server [serial|pool|virtual] [poolSize]</code>. See {@link ServerMode} for what each mode does. The
+ * default is <code>serial</code>.
+ */
 public class Server {
 
     public static void main(String[] args) {
+        ServerMode mode = args.length > 0 ? ServerMode.parse(args[0]) : ServerMode.SERIAL;
+        int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : ServerMode.DEFAULT_POOL_SIZE;
+
         try (ServerSocket socket = new ServerSocket(0)) {
 
             InetAddress serverHost = InetAddress.getLocalHost();
             System.out.println("Server destination: " + serverHost.getHostAddress() + ":" + socket.getLocalPort());
+            System.out.println("Serving clients in " + mode + " mode");
+            Executor executor = mode.createExecutor(poolSize);
 
             /* Repeatedly handle requests for processing. */
             while (true) {
+                Socket clientConnection = socket.accept();
+                executor.execute(() -> serve(clientConnection));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-                try (Socket clientConnection = socket.accept()) {
-                    DataInputStream in = new DataInputStream(clientConnection.getInputStream());
-                    DataOutputStream out = new DataOutputStream(clientConnection.getOutputStream());
-
-                    /* Read numbers to multiply. */
-                    int x = in.readInt();
-                    int y = in.readInt();
+    private static void serve(Socket clientConnection) {
+        try (clientConnection) {
 
-                    /* Compute the product and send it back to the client. */
-                    int result = x * y;
-                    out.writeInt(result);
+            /* Read numbers to multiply, compute the product(s) and send them back to the client. */
+            MultiplyProtocol.serve(clientConnection);
 
-                }
-            }
         } catch (IOException e) {
+            /* Don't let one misbehaving client take the whole server down. */
             e.printStackTrace();
         }
     }
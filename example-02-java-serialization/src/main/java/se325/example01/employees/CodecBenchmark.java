@@ -0,0 +1,97 @@
+package se325.example01.employees;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Compares Java serialization with the {@link CompactFormat}: how many bytes each puts on the wire for the same
+ * employee, and how long each takes to encode and decode it. Each message is written with a fresh stream, just as the
+ * server does for each connection.
+ * <p>
+ * Usage: <code>CodecBenchmark [teamSize]</code>. The employee sent is a member of a team of the given size (default
+ * 50), so the whole team goes along with them.
+ */
+public class CodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int teamSize = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        Manager mgr = new Manager("David", "8653899");
+        for (int i = 0; i < teamSize; i++) {
+            new Employee("Employee " + i, String.format("%07d", i), mgr);
+        }
+        Employee employee = mgr.getResponsibleFor().get(0);
+
+        byte[] serialized = serialize(employee);
+        byte[] compact = encodeCompact(employee);
+
+        System.out.println("Team of " + teamSize + ":");
+        System.out.println("                 bytes   encode (ns)   decode (ns)");
+        report("Serialization", serialized.length,
+                time(() -> serialize(employee)), time(() -> deserialize(serialized)));
+        report("Compact", compact.length,
+                time(() -> encodeCompact(employee)), time(() -> decodeCompact(compact)));
+    }
+
+    private static byte[] serialize(Employee employee) throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        try (ObjectOutputStream objOut = new ObjectOutputStream(bytesOut)) {
+            objOut.writeObject(employee);
+        }
+        return bytesOut.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return objIn.readObject();
+        }
+    }
+
+    private static byte[] encodeCompact(Employee employee) throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        new CompactEmployeeOutput(bytesOut).writeEmployee(employee);
+        return bytesOut.toByteArray();
+    }
+
+    private static Object decodeCompact(byte[] bytes) throws IOException {
+        return new CompactEmployeeInput(new ByteArrayInputStream(bytes)).readEmployee();
+    }
+
+    /**
+     * Runs the given task enough times for the JIT compiler to kick in, then times it.
+     *
+     * @return the average time per run, in nanoseconds.
+     */
+    private static double time(Task task) throws IOException, ClassNotFoundException {
+        Object sink = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink = task.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink = task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Use the result, so the JIT compiler can't decide the work is unnecessary.
+        if (sink == null) {
+            throw new IllegalStateException();
+        }
+        return (double) elapsed / MEASURED_ITERATIONS;
+    }
+
+    private static void report(String name, int bytes, double encodeNanos, double decodeNanos) {
+        System.out.printf("%-14s %7d %13.0f %13.0f%n", name, bytes, encodeNanos, decodeNanos);
+    }
+
+    private interface Task {
+        Object run() throws IOException, ClassNotFoundException;
+    }
+}
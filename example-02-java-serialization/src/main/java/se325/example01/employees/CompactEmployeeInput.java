@@ -0,0 +1,191 @@
+package se325.example01.employees;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads employees and employee requests written in the {@link CompactFormat} by a {@link CompactEmployeeOutput}. The
+ * underlying stream should be buffered, as values are read from it a byte or a few bytes at a time.
+ */
+public class CompactEmployeeInput {
+
+    private final InputStream in;
+
+    /** The employees read so far in the current message, indexed by handle. */
+    private final List<Employee> handles = new ArrayList<>();
+
+    private byte[] stringBuffer = new byte[64];
+
+    public CompactEmployeeInput(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads a single employee (who may be null), as written by {@link CompactEmployeeOutput#writeEmployee(Employee)}.
+     */
+    public Employee readEmployee() throws IOException {
+        handles.clear();
+        return readReference();
+    }
+
+    /**
+     * Reads a list of employees, as written by {@link CompactEmployeeOutput#writeEmployees(List)}.
+     */
+    public List<Employee> readEmployees() throws IOException {
+        handles.clear();
+        int count = readCount();
+        List<Employee> employees = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            employees.add(readReference());
+        }
+        return employees;
+    }
+
+    /**
+     * Reads a request, as written by {@link CompactEmployeeOutput#writeRequest(Object)}.
+     *
+     * @return an {@link EmployeeRequest}, {@link EmployeeSsnRequest}, {@link EmployeePrefixRequest} or
+     * {@link EmployeeBatchRequest}.
+     */
+    public Object readRequest() throws IOException {
+        int type = readByte();
+        switch (type) {
+            case CompactFormat.REQUEST_BY_NAME:
+                return new EmployeeRequest(readString());
+            case CompactFormat.REQUEST_BY_SSN:
+                return new EmployeeSsnRequest(readString());
+            case CompactFormat.REQUEST_BY_PREFIX:
+                String prefix = readString();
+                if (prefix == null) {
+                    throw new StreamCorruptedException("Prefix request without a prefix");
+                }
+                return new EmployeePrefixRequest(prefix, readVarInt());
+            case CompactFormat.REQUEST_BY_NAMES:
+                int count = readCount();
+                List<String> names = new ArrayList<>(Math.min(count, 1024));
+                for (int i = 0; i < count; i++) {
+                    names.add(readString());
+                }
+                return new EmployeeBatchRequest(names);
+            default:
+                throw new StreamCorruptedException("Unknown request type: " + type);
+        }
+    }
+
+    private Employee readReference() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case CompactFormat.TAG_NULL:
+                return null;
+
+            case CompactFormat.TAG_HANDLE:
+                int handle = readVarInt();
+                if (handle < 0 || handle >= handles.size()) {
+                    throw new StreamCorruptedException("Unknown handle: " + handle);
+                }
+                return handles.get(handle);
+
+            case CompactFormat.TAG_EMPLOYEE:
+            case CompactFormat.TAG_MANAGER:
+                String name = readString();
+                String ssn = readString();
+
+                /*
+                 * Create the employee without a manager, and register their handle, before reading the manager - who may
+                 * well refer back to them. We fill in the fields directly, rather than passing the manager to the
+                 * constructor, because the constructor would also add this employee to the manager's list, and we're
+                 * about to read that list ourselves.
+                 */
+                boolean isManager = tag == CompactFormat.TAG_MANAGER;
+                Employee employee = isManager ? new Manager(name, ssn) : new Employee(name, ssn);
+                handles.add(employee);
+                employee.manager = readManager();
+
+                if (isManager) {
+                    Manager manager = (Manager) employee;
+                    int count = readCount();
+                    for (int i = 0; i < count; i++) {
+                        manager.addEmployee(readReference());
+                    }
+                }
+                return employee;
+
+            default:
+                throw new StreamCorruptedException("Unknown tag: " + tag);
+        }
+    }
+
+    private Manager readManager() throws IOException {
+        Employee manager = readReference();
+        if (manager != null && !(manager instanceof Manager)) {
+            throw new StreamCorruptedException("Employee's manager isn't a Manager: " + manager);
+        }
+        return (Manager) manager;
+    }
+
+    /**
+     * Reads a string, checking its length before allocating anything for it.
+     */
+    private String readString() throws IOException {
+        int encodedLength = readVarInt();
+        if (encodedLength == 0) {
+            return null;
+        }
+        int length = encodedLength - 1;
+        if (length < 0 || length > CompactFormat.MAX_STRING_LENGTH) {
+            throw new StreamCorruptedException("Invalid string length: " + length);
+        }
+        if (stringBuffer.length < length) {
+            stringBuffer = new byte[Math.max(length, stringBuffer.length * 2)];
+        }
+        readFully(stringBuffer, length);
+        return new String(stringBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the number of items that follow. A varint can encode a negative int, but a count can't be one.
+     */
+    private int readCount() throws IOException {
+        int count = readVarInt();
+        if (count < 0) {
+            throw new StreamCorruptedException("Negative count: " + count);
+        }
+        return count;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Varint is too long");
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private void readFully(byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(buffer, read, length - read);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+    }
+}
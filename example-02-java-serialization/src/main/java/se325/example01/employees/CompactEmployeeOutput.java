@@ -0,0 +1,129 @@
+package se325.example01.employees;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes employees and employee requests in the {@link CompactFormat}. The underlying stream should be buffered, as
+ * values are written to it a byte or a few bytes at a time.
+ */
+public class CompactEmployeeOutput {
+
+    private final OutputStream out;
+
+    /** Handles for the employees written so far in the current message. */
+    private final Map<Employee, Integer> handles = new IdentityHashMap<>();
+
+    public CompactEmployeeOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a single employee, who may be null, along with their manager and colleagues, as one message.
+     */
+    public void writeEmployee(Employee employee) throws IOException {
+        handles.clear();
+        writeReference(employee);
+    }
+
+    /**
+     * Writes a list of employees as one message. Any employees the list's members have in common (e.g. a shared
+     * manager) are only written once.
+     */
+    public void writeEmployees(List<Employee> employees) throws IOException {
+        handles.clear();
+        writeVarInt(employees.size());
+        for (Employee employee : employees) {
+            writeReference(employee);
+        }
+    }
+
+    /**
+     * Writes an {@link EmployeeRequest}, {@link EmployeeSsnRequest}, {@link EmployeePrefixRequest} or
+     * {@link EmployeeBatchRequest}.
+     */
+    public void writeRequest(Object request) throws IOException {
+        if (request instanceof EmployeeRequest) {
+            out.write(CompactFormat.REQUEST_BY_NAME);
+            writeString(((EmployeeRequest) request).getName());
+
+        } else if (request instanceof EmployeeSsnRequest) {
+            out.write(CompactFormat.REQUEST_BY_SSN);
+            writeString(((EmployeeSsnRequest) request).getSsn());
+
+        } else if (request instanceof EmployeePrefixRequest) {
+            EmployeePrefixRequest prefixRequest = (EmployeePrefixRequest) request;
+            out.write(CompactFormat.REQUEST_BY_PREFIX);
+            writeString(prefixRequest.getPrefix());
+            writeVarInt(prefixRequest.getMaxResults());
+
+        } else if (request instanceof EmployeeBatchRequest) {
+            List<String> names = ((EmployeeBatchRequest) request).getNames();
+            out.write(CompactFormat.REQUEST_BY_NAMES);
+            writeVarInt(names.size());
+            for (String name : names) {
+                writeString(name);
+            }
+
+        } else {
+            throw new IllegalArgumentException("Not a request: " + request);
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeReference(Employee employee) throws IOException {
+        if (employee == null) {
+            out.write(CompactFormat.TAG_NULL);
+            return;
+        }
+
+        Integer handle = handles.get(employee);
+        if (handle != null) {
+            out.write(CompactFormat.TAG_HANDLE);
+            writeVarInt(handle);
+            return;
+        }
+
+        /* The handle must be assigned before writing the manager, who may well refer back to this employee. */
+        handles.put(employee, handles.size());
+
+        boolean isManager = employee instanceof Manager;
+        out.write(isManager ? CompactFormat.TAG_MANAGER : CompactFormat.TAG_EMPLOYEE);
+        writeString(employee.name);
+        writeString(employee.ssn);
+        writeReference(employee.manager);
+
+        if (isManager) {
+            List<Employee> responsibleFor = ((Manager) employee).getResponsibleFor();
+            writeVarInt(responsibleFor.size());
+            for (Employee e : responsibleFor) {
+                writeReference(e);
+            }
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
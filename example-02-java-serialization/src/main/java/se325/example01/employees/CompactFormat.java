@@ -0,0 +1,54 @@
+package se325.example01.employees;
+
+/**
+ * Constants describing the compact binary format written by {@link CompactEmployeeOutput} and read by
+ * {@link CompactEmployeeInput}. This is an alternative to Java serialization which, unlike Java serialization, doesn't
+ * need to describe each class it sends before sending the data itself.
+ * <p>
+ * The format is made up of:
+ * <ul>
+ *     <li><b>Varints</b>: Non-negative ints, written seven bits at a time, least significant first. The top bit of each
+ *     byte is set if more bytes follow. Small numbers (under 128) take a single byte.</li>
+ *     <li><b>Strings</b>: The number of UTF-8 bytes plus one, as a varint, followed by the bytes. A length of zero means
+ *     <code>null</code>.</li>
+ *     <li><b>Employee references</b>: A tag byte, and then:
+ *     <ul>
+ *         <li>{@link #TAG_NULL}: Nothing.</li>
+ *         <li>{@link #TAG_EMPLOYEE} or {@link #TAG_MANAGER}: The name and SSN strings, then a reference to the
+ *         employee's manager. For managers, that's followed by the number of employees they're responsible for as a
+ *         varint, then a reference to each of those employees.</li>
+ *         <li>{@link #TAG_HANDLE}: A varint handle, referring to an employee which has already been written as part
+ *         of the same message. The first employee written gets handle 0, the second handle 1, and so on. This is how
+ *         a manager and their employees can refer to each other without being written out more than once.</li>
+ *     </ul>
+ *     </li>
+ * </ul>
+ */
+public final class CompactFormat {
+
+    /**
+     * Sent by a client as the very first byte of a connection, to ask for the compact format rather than Java
+     * serialization. Java serialization streams always start with <code>0xAC</code>, so the two can't be confused.
+     */
+    public static final int PROTOCOL_MARKER = 0x01;
+
+    public static final int TAG_NULL = 0;
+    public static final int TAG_EMPLOYEE = 1;
+    public static final int TAG_MANAGER = 2;
+    public static final int TAG_HANDLE = 3;
+
+    /** Request types, sent as a byte at the start of each request. */
+    public static final int REQUEST_BY_NAME = 1;
+    public static final int REQUEST_BY_SSN = 2;
+    public static final int REQUEST_BY_PREFIX = 3;
+    public static final int REQUEST_BY_NAMES = 4;
+
+    /**
+     * The longest string, in UTF-8 bytes, a reader will accept. Lengths come straight from the other end of the
+     * connection, so without a limit a few bytes could make the reader allocate a buffer of nearly 2 GB.
+     */
+    public static final int MAX_STRING_LENGTH = 64 * 1024;
+
+    private CompactFormat() {
+    }
+}
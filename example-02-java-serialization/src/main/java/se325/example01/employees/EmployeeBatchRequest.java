@@ -0,0 +1,26 @@
+package se325.example01.employees;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Asks for several employees by name at once, saving a round trip per name. The reply is a
+ * <code>List&lt;Employee&gt;</code> with one entry per name, in the same order, which is null for any name which wasn't
+ * found.
+ */
+public class EmployeeBatchRequest implements Serializable {
+
+    private List<String> names;
+
+    public EmployeeBatchRequest(List<String> names) {
+        this.names = names;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public void setNames(List<String> names) {
+        this.names = names;
+    }
+}
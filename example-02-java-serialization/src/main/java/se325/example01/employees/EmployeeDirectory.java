@@ -0,0 +1,130 @@
+package se325.example01.employees;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An indexed collection of employees, which can be searched by name, by SSN, or by the start of a name without having
+ * to look at every employee.
+ * <p>
+ * Name searches ignore case: names are <em>case-folded</em> (converted to lower case) both when they are indexed and
+ * when they are looked up. If several employees share a name, searching for that name finds the one added first.
+ * <p>
+ * A directory may safely be searched by many threads at once, including while employees are being added.
+ */
+public class EmployeeDirectory {
+
+    /** Separates the name and SSN in the keys of {@link #sortedByName}. Sorts before any other character. */
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    /** Sorts after any other character. */
+    private static final char LAST_CHAR = '\uffff';
+
+    private final Map<String, Employee> byName;
+    private final Map<String, Employee> bySsn;
+
+    /**
+     * Every employee, keyed by their case-folded name followed by their SSN, so that employees who share a name each
+     * get their own entry. Being sorted, all the names starting with a given prefix are next to each other.
+     */
+    private final ConcurrentSkipListMap<String, Employee> sortedByName;
+
+    public EmployeeDirectory() {
+        this.byName = new ConcurrentHashMap<>();
+        this.bySsn = new ConcurrentHashMap<>();
+        this.sortedByName = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Creates a directory containing the given employees. This is much quicker than adding them one at a time: the
+     * hash indexes are created at the right size up front, and the sorted index is built in a single pass from a
+     * pre-sorted map.
+     */
+    public EmployeeDirectory(Collection<? extends Employee> employees) {
+        this.byName = new ConcurrentHashMap<>(employees.size());
+        this.bySsn = new ConcurrentHashMap<>(employees.size());
+        TreeMap<String, Employee> sorted = new TreeMap<>();
+
+        for (Employee employee : employees) {
+            String foldedName = fold(employee.getName());
+            byName.putIfAbsent(foldedName, employee);
+            bySsn.putIfAbsent(employee.getSsn(), employee);
+            sorted.put(sortedKey(foldedName, employee), employee);
+        }
+
+        this.sortedByName = new ConcurrentSkipListMap<>(sorted);
+    }
+
+    public void add(Employee employee) {
+        String foldedName = fold(employee.getName());
+        byName.putIfAbsent(foldedName, employee);
+        bySsn.putIfAbsent(employee.getSsn(), employee);
+        sortedByName.put(sortedKey(foldedName, employee), employee);
+    }
+
+    public int size() {
+        return sortedByName.size();
+    }
+
+    /**
+     * Finds an employee by name, ignoring case.
+     *
+     * @return the employee, or null if there isn't one with that name.
+     */
+    public Employee findByName(String name) {
+        return byName.get(fold(name));
+    }
+
+    /**
+     * Finds an employee by SSN.
+     *
+     * @return the employee, or null if there isn't one with that SSN.
+     */
+    public Employee findBySsn(String ssn) {
+        return bySsn.get(ssn);
+    }
+
+    /**
+     * Finds employees whose names start with the given prefix, ignoring case, in alphabetical order.
+     *
+     * @param prefix     the start of the names to look for.
+     * @param maxResults the most employees to return. If it's 0 or less, no employees are returned.
+     * @throws IllegalArgumentException if the prefix is null.
+     */
+    public List<Employee> findByNamePrefix(String prefix, int maxResults) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("prefix must not be null");
+        }
+        if (maxResults <= 0) {
+            return new ArrayList<>();
+        }
+        String foldedPrefix = fold(prefix);
+
+        /* Every key starting with the prefix sorts after the prefix itself, and before the prefix followed by LAST_CHAR. */
+        NavigableMap<String, Employee> matches = sortedByName.subMap(foldedPrefix, true, foldedPrefix + LAST_CHAR, false);
+
+        List<Employee> results = new ArrayList<>(Math.min(maxResults, 16));
+        for (Employee employee : matches.values()) {
+            if (results.size() >= maxResults) {
+                break;
+            }
+            results.add(employee);
+        }
+        return results;
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String sortedKey(String foldedName, Employee employee) {
+        return foldedName + KEY_SEPARATOR + employee.getSsn();
+    }
+}
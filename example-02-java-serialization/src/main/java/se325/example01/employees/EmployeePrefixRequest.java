@@ -0,0 +1,34 @@
+package se325.example01.employees;
+
+import java.io.Serializable;
+
+/**
+ * Asks for all employees whose names start with a particular prefix (ignoring case), up to some maximum number of
+ * employees. The reply is a <code>List&lt;Employee&gt;</code>, in alphabetical order.
+ */
+public class EmployeePrefixRequest implements Serializable {
+
+    private String prefix;
+    private int maxResults;
+
+    public EmployeePrefixRequest(String prefix, int maxResults) {
+        this.prefix = prefix;
+        this.maxResults = maxResults;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+}
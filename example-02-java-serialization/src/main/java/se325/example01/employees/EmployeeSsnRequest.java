@@ -0,0 +1,23 @@
+package se325.example01.employees;
+
+import java.io.Serializable;
+
+/**
+ * Asks for the employee with a particular SSN. The reply is the same as for an {@link EmployeeRequest}.
+ */
+public class EmployeeSsnRequest implements Serializable {
+
+    private String ssn;
+
+    public EmployeeSsnRequest(String ssn) {
+        this.ssn = ssn;
+    }
+
+    public String getSsn() {
+        return ssn;
+    }
+
+    public void setSsn(String ssn) {
+        this.ssn = ssn;
+    }
+}
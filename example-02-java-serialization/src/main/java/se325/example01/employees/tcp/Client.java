@@ -1,38 +1,65 @@
 package se325.example01.employees.tcp;
 
 import se325.util.Keyboard;
+import se325.example01.employees.CompactEmployeeInput;
+import se325.example01.employees.CompactEmployeeOutput;
+import se325.example01.employees.CompactFormat;
 import se325.example01.employees.Employee;
+import se325.example01.employees.EmployeeBatchRequest;
+import se325.example01.employees.EmployeePrefixRequest;
 import se325.example01.employees.EmployeeRequest;
+import se325.example01.employees.EmployeeSsnRequest;
 
 import java.io.*;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * Usage: <code>Client [compact] [session]</code>. By default, the client talks to the server using Java serialization.
+ * Pass <code>compact</code> to use the {@link CompactFormat} instead.
+ * <p>
+ * By default, the client makes a single search and then disconnects. Pass <code>session</code> to keep the connection
+ * open and keep searching, until an empty search is entered.
+ */
 public class Client {
+
+    private static final int MAX_PREFIX_RESULTS = 20;
+
     public static void main(String[] args) {
+        List<String> options = Arrays.asList(args);
+        boolean compact = options.contains("compact");
+        boolean session = options.contains("session");
+
         try {
 
             InetAddress serverAddress = InetAddress.getByName(Keyboard.prompt("Server address:"));
             int serverPort = Integer.parseInt(Keyboard.prompt("Server port:"));
-            String empName = Keyboard.prompt(("Enter employee name to find:"));
 
             try (Socket socket = new Socket(serverAddress, serverPort)) {
 
-                ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
-                ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+                Connection connection = compact ? new CompactConnection(socket) : new SerializedConnection(socket);
 
-                out.writeObject(new EmployeeRequest(empName));
+                do {
+                    String searchBy = Keyboard.prompt("Search by name, ssn, prefix or names?");
+                    String search = Keyboard.prompt(("Enter " + searchBy + " to find"
+                            + (searchBy.equalsIgnoreCase("names") ? " (separated by commas)" : "") + ":"));
+                    if (search.isEmpty()) {
+                        break;
+                    }
 
-                boolean found = in.readBoolean();
-
-                if (found) {
-                    Employee emp = (Employee) in.readObject();
-                    System.out.println("Employee found!");
-                    System.out.println(emp);
-                }
-                else {
-                    System.out.println("No employee found with that name.");
-                }
+                    if (searchBy.equalsIgnoreCase("prefix")) {
+                        printMatches(connection.findAll(new EmployeePrefixRequest(search, MAX_PREFIX_RESULTS)));
+                    } else if (searchBy.equalsIgnoreCase("names")) {
+                        List<String> names = Arrays.asList(search.split("\\s*,\\s*"));
+                        printMatches(connection.findAll(new EmployeeBatchRequest(names)));
+                    } else if (searchBy.equalsIgnoreCase("ssn")) {
+                        printMatch(connection.find(new EmployeeSsnRequest(search)), searchBy);
+                    } else {
+                        printMatch(connection.find(new EmployeeRequest(search)), searchBy);
+                    }
+                } while (session);
 
             }
 
@@ -44,4 +71,97 @@ public class Client {
             e.printStackTrace();
         }
     }
+
+    private static void printMatch(Employee emp, String searchBy) {
+        if (emp != null) {
+            System.out.println("Employee found!");
+            System.out.println(emp);
+        }
+        else {
+            System.out.println("No employee found with that " + searchBy + ".");
+        }
+    }
+
+    private static void printMatches(List<Employee> matches) {
+        System.out.println(matches.size() + " result(s).");
+        for (Employee emp : matches) {
+            System.out.println(emp != null ? emp : "Not found");
+        }
+    }
+
+    /**
+     * Sends requests to the server, and reads its replies, in one of the two formats it understands.
+     */
+    private interface Connection {
+
+        /** Sends an {@link EmployeeRequest} or {@link EmployeeSsnRequest}, and returns the match (or null). */
+        Employee find(Object request) throws IOException, ClassNotFoundException;
+
+        /** Sends an {@link EmployeePrefixRequest} or {@link EmployeeBatchRequest}, and returns the matches. */
+        List<Employee> findAll(Object request) throws IOException, ClassNotFoundException;
+    }
+
+    private static class SerializedConnection implements Connection {
+
+        private final ObjectOutputStream out;
+        private final ObjectInputStream in;
+        private int requests;
+
+        SerializedConnection(Socket socket) throws IOException {
+            this.out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.flush();
+            this.in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+        }
+
+        @Override
+        public Employee find(Object request) throws IOException, ClassNotFoundException {
+            send(request);
+            boolean found = in.readBoolean();
+            return found ? (Employee) in.readObject() : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Employee> findAll(Object request) throws IOException, ClassNotFoundException {
+            send(request);
+            return (List<Employee>) in.readObject();
+        }
+
+        private void send(Object request) throws IOException {
+            // Like the server, reset now and then, so our stream doesn't remember every request we've ever sent
+            if (requests > 0 && requests % Server.DEFAULT_RESET_INTERVAL == 0) {
+                out.reset();
+            }
+            out.writeObject(request);
+            out.flush();
+            requests++;
+        }
+    }
+
+    private static class CompactConnection implements Connection {
+
+        private final CompactEmployeeOutput out;
+        private final CompactEmployeeInput in;
+
+        CompactConnection(Socket socket) throws IOException {
+            OutputStream rawOut = new BufferedOutputStream(socket.getOutputStream());
+            rawOut.write(CompactFormat.PROTOCOL_MARKER);
+            this.out = new CompactEmployeeOutput(rawOut);
+            this.in = new CompactEmployeeInput(new BufferedInputStream(socket.getInputStream()));
+        }
+
+        @Override
+        public Employee find(Object request) throws IOException {
+            out.writeRequest(request);
+            out.flush();
+            return in.readEmployee();
+        }
+
+        @Override
+        public List<Employee> findAll(Object request) throws IOException {
+            out.writeRequest(request);
+            out.flush();
+            return in.readEmployees();
+        }
+    }
 }
@@ -1,70 +1,231 @@
 package se325.example01.employees.tcp;
 
+import se325.example01.employees.CompactEmployeeInput;
+import se325.example01.employees.CompactEmployeeOutput;
+import se325.example01.employees.CompactFormat;
 import se325.example01.employees.Employee;
+import se325.example01.employees.EmployeeBatchRequest;
+import se325.example01.employees.EmployeeDirectory;
+import se325.example01.employees.EmployeePrefixRequest;
 import se325.example01.employees.EmployeeRequest;
+import se325.example01.employees.EmployeeSsnRequest;
 import se325.example01.employees.Manager;
 
 import java.io.*;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
-
+import java.util.concurrent.Executor;
+
+/**
+ * Usage: <code>Server [serial|pool|virtual] [poolSize] [resetInterval]</code>. See {@link ServerMode} for what each
+ * mode does. The default is <code>serial</code>.
+ * <p>
+ * Each connection is a <em>session</em>: the server keeps answering requests on it until the client closes it, so a
+ * client which wants several employees can avoid connecting (and, with Java serialization, sending class descriptors)
+ * again for each one. Clients which only send a single request and then disconnect work just as they did before.
+ * <p>
+ * When using Java serialization, the server's {@link ObjectOutputStream} remembers every object it has sent during a
+ * session, so that it can send a short back-reference if it sees them again. To stop that table (and the matching
+ * one in the client's {@link ObjectInputStream}) from growing forever, the server resets the stream after every
+ * <code>resetInterval</code> replies (default {@value #DEFAULT_RESET_INTERVAL}). 0 means never reset. Resetting also
+ * forgets which class descriptors have been sent, so they're sent again after each reset: the interval trades memory
+ * for bytes on the wire.
+ */
 public class Server {
 
+    public static final int DEFAULT_RESET_INTERVAL = 100;
+
     public static void main(String[] args) {
+        ServerMode mode = args.length > 0 ? ServerMode.parse(args[0]) : ServerMode.SERIAL;
+        int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : ServerMode.DEFAULT_POOL_SIZE;
+        int resetInterval = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_RESET_INTERVAL;
 
         Manager mgr = new Manager("David", "8653899");
         Employee e1 = new Employee("Tim", "2368571", mgr);
         Employee e2 = new Employee("Gareth", "0911558", mgr);
-        List<Employee> employees = Arrays.asList(mgr, e1, e2);
+        EmployeeDirectory directory = new EmployeeDirectory(Arrays.asList(mgr, e1, e2));
 
         try (ServerSocket socket = new ServerSocket(0)) {
 
             InetAddress serverHost = InetAddress.getLocalHost();
             System.out.println("Server destination: " + serverHost.getHostAddress() + ":" + socket.getLocalPort());
+            System.out.println("Serving clients in " + mode + " mode");
+            Executor executor = mode.createExecutor(poolSize);
 
             /* Repeatedly handle requests for processing. */
             while (true) {
+                Socket clientConnection = socket.accept();
+                executor.execute(() -> serve(clientConnection, directory, resetInterval));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void serve(Socket clientConnection, EmployeeDirectory directory, int resetInterval) {
+        try (clientConnection) {
+            System.out.println("Client connected!");
+
+            InputStream in = new BufferedInputStream(clientConnection.getInputStream());
+            OutputStream out = new BufferedOutputStream(clientConnection.getOutputStream());
+
+            // Peek at the first byte, to see whether the client wants the compact format or Java serialization
+            in.mark(1);
+            if (in.read() == CompactFormat.PROTOCOL_MARKER) {
+                serveCompact(in, out, directory);
+            } else {
+                in.reset();
+                serveSerialized(in, out, directory, resetInterval);
+            }
+
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+        } catch (RuntimeException e) {
+            // A bad request mustn't take the whole server down with it (in serial mode, this runs on the accepting
+            // thread). Give up on this client only: its connection is closed on the way out.
+            System.out.println("Closing connection after failing to handle a request:");
+            e.printStackTrace();
+        }
+    }
+
+    private static void serveSerialized(InputStream rawIn, OutputStream rawOut, EmployeeDirectory directory,
+                                        int resetInterval) throws IOException, ClassNotFoundException {
+
+        ObjectInputStream in = new ObjectInputStream(rawIn);
+        ObjectOutputStream out = new ObjectOutputStream(rawOut);
 
-                try (Socket clientConnection = socket.accept()) {
-                    System.out.println("Client connected!");
+        // The client won't send its request until it has received our stream header
+        out.flush();
 
-                    ObjectInputStream in = new ObjectInputStream(clientConnection.getInputStream());
-                    ObjectOutputStream out = new ObjectOutputStream(clientConnection.getOutputStream());
+        System.out.println("Streams obtained!");
 
-                    System.out.println("Streams obtained!");
+        int replies = 0;
+        while (true) {
 
-                    // Read request
-                    EmployeeRequest request = (EmployeeRequest) in.readObject();
+            // Read the next request, until the client hangs up
+            Object request;
+            try {
+                request = in.readObject();
+            } catch (EOFException e) {
+                break;
+            }
+
+            // Forget the objects we've sent so far, so they can be garbage collected. The client's stream will see the
+            // reset marker, and forget them too.
+            if (resetInterval > 0 && replies > 0 && replies % resetInterval == 0) {
+                out.reset();
+            }
 
-                    System.out.println("Client requested for employee named '" + request.getName() + "'");
+            if (request instanceof EmployeePrefixRequest) {
 
-                    // Find matching employee
-                    Optional<Employee> match = employees.stream().filter(e -> e.getName().equalsIgnoreCase(request.getName())).findFirst();
+                // Send back all the matches, even if there aren't any
+                out.writeObject(findByPrefix((EmployeePrefixRequest) request, directory));
 
-                    // Send it back if present
-                    if (match.isPresent()) {
-                        System.out.println("Found!");
-                        out.writeBoolean(true);
-                        out.writeObject(match.get());
-                    }
+            } else if (request instanceof EmployeeBatchRequest) {
 
-                    // Notify not-found otherwise
-                    else {
-                        System.out.println("Not found!");
-                        out.writeBoolean(false);
-                    }
+                // Send back all the matches in one go
+                out.writeObject(findAll((EmployeeBatchRequest) request, directory));
 
-                    out.flush();
+            } else {
+                Employee match = find(request, directory);
 
+                // Send it back if present, or notify not-found otherwise
+                out.writeBoolean(match != null);
+                if (match != null) {
+                    out.writeObject(match);
                 }
             }
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+
+            out.flush();
+            replies++;
         }
+
+        System.out.println("Client disconnected after " + replies + " request(s)");
+    }
+
+    private static void serveCompact(InputStream rawIn, OutputStream rawOut, EmployeeDirectory directory)
+            throws IOException {
+
+        CompactEmployeeInput in = new CompactEmployeeInput(rawIn);
+        CompactEmployeeOutput out = new CompactEmployeeOutput(rawOut);
+
+        System.out.println("Client is using the compact format!");
+
+        int replies = 0;
+        while (true) {
+
+            // Read the next request, until the client hangs up
+            Object request;
+            try {
+                request = in.readRequest();
+            } catch (EOFException e) {
+                break;
+            }
+
+            // Send back the match(es). The compact format has its own way of saying "not found", so no flag is needed.
+            // Each message has its own handles, so there's nothing to reset.
+            if (request instanceof EmployeePrefixRequest) {
+                out.writeEmployees(findByPrefix((EmployeePrefixRequest) request, directory));
+            } else if (request instanceof EmployeeBatchRequest) {
+                out.writeEmployees(findAll((EmployeeBatchRequest) request, directory));
+            } else {
+                out.writeEmployee(find(request, directory));
+            }
+
+            out.flush();
+            replies++;
+        }
+
+        System.out.println("Client disconnected after " + replies + " request(s)");
+    }
+
+    private static List<Employee> findByPrefix(EmployeePrefixRequest request, EmployeeDirectory directory) {
+        System.out.println("Client requested for employees starting with '" + request.getPrefix() + "'");
+
+        List<Employee> matches = directory.findByNamePrefix(request.getPrefix(), request.getMaxResults());
+        System.out.println("Found " + matches.size() + "!");
+        return matches;
+    }
+
+    /**
+     * Looks up each of the names in a batch request.
+     *
+     * @return one entry per name, which is null if there's no match.
+     */
+    private static List<Employee> findAll(EmployeeBatchRequest request, EmployeeDirectory directory) {
+        System.out.println("Client requested for " + request.getNames().size() + " employee(s) by name");
+
+        List<Employee> matches = new ArrayList<>(request.getNames().size());
+        for (String name : request.getNames()) {
+            matches.add(directory.findByName(name));
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the employee asked for by an {@link EmployeeRequest} or {@link EmployeeSsnRequest}, using the directory's
+     * indexes rather than checking every employee.
+     *
+     * @return the employee, or null if there's no match.
+     */
+    private static Employee find(Object request, EmployeeDirectory directory) {
+        Employee match;
+        if (request instanceof EmployeeSsnRequest) {
+            String ssn = ((EmployeeSsnRequest) request).getSsn();
+            System.out.println("Client requested for employee with SSN '" + ssn + "'");
+            match = directory.findBySsn(ssn);
+        } else {
+            String name = ((EmployeeRequest) request).getName();
+            System.out.println("Client requested for employee named '" + name + "'");
+            match = directory.findByName(name);
+        }
+
+        System.out.println(match != null ? "Found!" : "Not found!");
+        return match;
     }
 
 }
@@ -0,0 +1,62 @@
+package se325.example01.employees.tcp;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The different ways {@link Server} can hand out the connections it accepts.
+ */
+public enum ServerMode {
+
+    /** Serve each client on the accepting thread, one at a time. While one client is being served, all others wait. */
+    SERIAL,
+
+    /** Serve clients on a fixed-size pool of platform threads. At most that many clients are served at once. */
+    POOL,
+
+    /**
+     * Serve each client on its own virtual thread. Virtual threads are cheap enough that tens of thousands of clients
+     * can each have their own, while the code serving them stays simple and blocking.
+     */
+    VIRTUAL;
+
+    /** Default number of threads for {@link #POOL} mode. */
+    public static final int DEFAULT_POOL_SIZE = 64;
+
+    /**
+     * Parses a mode name, as given on the command line, ignoring case.
+     */
+    public static ServerMode parse(String name) {
+        return valueOf(name.toUpperCase());
+    }
+
+    /**
+     * Creates an executor which serves connections according to this mode.
+     *
+     * @param poolSize the number of threads to use in {@link #POOL} mode. Ignored by the other modes.
+     */
+    public Executor createExecutor(int poolSize) {
+        switch (this) {
+            case POOL:
+                return Executors.newFixedThreadPool(poolSize);
+            case VIRTUAL:
+                return newVirtualThreadPerTaskExecutor();
+            default:
+                return Runnable::run;
+        }
+    }
+
+    /**
+     * Virtual threads arrived in Java 21, but this project targets Java 11, so we have to look the factory method up
+     * reflectively. On an older JVM we fall back to starting a new platform thread per connection, which behaves the
+     * same way but won't scale nearly as far.
+     */
+    private static Executor newVirtualThreadPerTaskExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads need Java 21 or later; using a platform thread per connection instead.");
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package se325.example01.employees;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestCompactFormat {
+
+    private Manager mgr;
+    private Employee e1;
+    private Employee e2;
+
+    @Before
+    public void setUp() {
+        Manager boss = new Manager("Jane", "1111111");
+        mgr = new Manager("David", "8653899", boss);
+        e1 = new Employee("Tim", "2368571", mgr);
+        e2 = new Employee("Gareth", "0911558", mgr);
+    }
+
+    @Test
+    public void testEmployeeRoundTrip() throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        CompactEmployeeOutput out = new CompactEmployeeOutput(bytesOut);
+        out.writeEmployee(e2);
+        out.writeEmployee(null);
+
+        CompactEmployeeInput in = new CompactEmployeeInput(new ByteArrayInputStream(bytesOut.toByteArray()));
+        Employee deserialized = in.readEmployee();
+
+        // They aren't the same object...
+        assertNotSame(e2, deserialized);
+
+        // But they have the same contents.
+        assertEquals(e2, deserialized);
+
+        // And the manager and their employees refer back to each other, just like the originals.
+        Manager deserializedMgr = deserialized.getManager();
+        assertEquals("David", deserializedMgr.getName());
+        assertEquals("Jane", deserializedMgr.getManager().getName());
+        assertEquals(2, deserializedMgr.getResponsibleFor().size());
+        assertEquals(e1, deserializedMgr.getResponsibleFor().get(0));
+        assertSame(deserialized, deserializedMgr.getResponsibleFor().get(1));
+        assertSame(deserializedMgr, deserializedMgr.getManager().getResponsibleFor().get(0));
+
+        assertNull(in.readEmployee());
+    }
+
+    @Test
+    public void testEmployeeListSharesManager() throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        new CompactEmployeeOutput(bytesOut).writeEmployees(Arrays.asList(e1, e2));
+
+        List<Employee> deserialized = new CompactEmployeeInput(new ByteArrayInputStream(bytesOut.toByteArray()))
+                .readEmployees();
+
+        assertEquals(Arrays.asList(e1, e2), deserialized);
+        assertSame(deserialized.get(0).getManager(), deserialized.get(1).getManager());
+    }
+
+    @Test
+    public void testRequestRoundTrip() throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        CompactEmployeeOutput out = new CompactEmployeeOutput(bytesOut);
+        out.writeRequest(new EmployeeRequest("Tim"));
+        out.writeRequest(new EmployeeSsnRequest("0911558"));
+        out.writeRequest(new EmployeePrefixRequest("Gar", 300));
+        out.writeRequest(new EmployeeBatchRequest(Arrays.asList("Tim", "Gareth")));
+
+        CompactEmployeeInput in = new CompactEmployeeInput(new ByteArrayInputStream(bytesOut.toByteArray()));
+        assertEquals("Tim", ((EmployeeRequest) in.readRequest()).getName());
+        assertEquals("0911558", ((EmployeeSsnRequest) in.readRequest()).getSsn());
+        EmployeePrefixRequest prefixRequest = (EmployeePrefixRequest) in.readRequest();
+        assertEquals("Gar", prefixRequest.getPrefix());
+        assertEquals(300, prefixRequest.getMaxResults());
+        assertEquals(Arrays.asList("Tim", "Gareth"), ((EmployeeBatchRequest) in.readRequest()).getNames());
+    }
+
+    @Test
+    public void testRejectsHugeStringLength() {
+        // A name request whose length varint says the name is 0x7FFFFFFE bytes long.
+        assertCorrupt(CompactFormat.REQUEST_BY_NAME, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+    }
+
+    @Test
+    public void testRejectsNegativeStringLength() {
+        // A varint of Integer.MIN_VALUE, which would wrap around to Integer.MAX_VALUE once the 1 is subtracted.
+        assertCorrupt(CompactFormat.REQUEST_BY_SSN, 0x80, 0x80, 0x80, 0x80, 0x08);
+    }
+
+    @Test
+    public void testRejectsNegativeCount() {
+        assertCorrupt(CompactFormat.REQUEST_BY_NAMES, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+    }
+
+    @Test
+    public void testRejectsNullPrefix() {
+        assertCorrupt(CompactFormat.REQUEST_BY_PREFIX, 0x00, 0x0A);
+    }
+
+    private static void assertCorrupt(int... bytes) {
+        byte[] message = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            message[i] = (byte) bytes[i];
+        }
+        CompactEmployeeInput in = new CompactEmployeeInput(new ByteArrayInputStream(message));
+        try {
+            in.readRequest();
+            fail("Expected a StreamCorruptedException");
+        } catch (StreamCorruptedException e) {
+            // Expected
+        } catch (IOException e) {
+            fail("Expected a StreamCorruptedException, but got " + e);
+        }
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws IOException {
+        ByteArrayOutputStream compactBytes = new ByteArrayOutputStream();
+        new CompactEmployeeOutput(compactBytes).writeEmployee(mgr);
+
+        ByteArrayOutputStream serializedBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objOut = new ObjectOutputStream(serializedBytes)) {
+            objOut.writeObject(mgr);
+        }
+
+        assertTrue(compactBytes.size() * 4 < serializedBytes.size());
+    }
+}
@@ -0,0 +1,91 @@
+package se325.example01.employees;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestEmployeeDirectory {
+
+    private Manager mgr;
+    private Employee e1;
+    private Employee e2;
+    private EmployeeDirectory directory;
+
+    @Before
+    public void setUp() {
+        mgr = new Manager("David", "8653899");
+        e1 = new Employee("Tim", "2368571", mgr);
+        e2 = new Employee("Gareth", "0911558", mgr);
+        directory = new EmployeeDirectory(Arrays.asList(mgr, e1, e2));
+    }
+
+    @Test
+    public void testFindByNameIgnoresCase() {
+        assertSame(e1, directory.findByName("Tim"));
+        assertSame(e1, directory.findByName("tIM"));
+        assertSame(mgr, directory.findByName("DAVID"));
+        assertNull(directory.findByName("Tom"));
+    }
+
+    @Test
+    public void testFindBySsn() {
+        assertSame(e2, directory.findBySsn("0911558"));
+        assertNull(directory.findBySsn("0000000"));
+    }
+
+    @Test
+    public void testFindByNamePrefix() {
+        Employee e3 = new Employee("Gary", "1234567", mgr);
+        Employee e4 = new Employee("gareth", "7654321", mgr);
+        directory.add(e3);
+        directory.add(e4);
+
+        // Sorted alphabetically, with both Gareths included.
+        List<Employee> matches = directory.findByNamePrefix("GAR", 10);
+        assertEquals(3, matches.size());
+        assertSame(e3, matches.get(2));
+
+        // The Gareth who was added first is still the one found by name.
+        assertSame(e2, directory.findByName("gareth"));
+
+        assertEquals(2, directory.findByNamePrefix("gar", 2).size());
+        assertEquals(5, directory.findByNamePrefix("", 10).size());
+        assertEquals(0, directory.findByNamePrefix("Garz", 10).size());
+    }
+
+    @Test
+    public void testFindByNamePrefixWithNoResultsWanted() {
+        assertEquals(0, directory.findByNamePrefix("G", 0).size());
+        assertEquals(0, directory.findByNamePrefix("G", -1).size());
+        assertEquals(0, directory.findByNamePrefix("G", Integer.MIN_VALUE).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindByNullPrefix() {
+        directory.findByNamePrefix(null, 10);
+    }
+
+    @Test
+    public void testBulkLoad() {
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            employees.add(new Employee("Employee" + i, String.format("%07d", i)));
+        }
+
+        EmployeeDirectory big = new EmployeeDirectory(employees);
+
+        assertEquals(100_000, big.size());
+        assertSame(employees.get(54321), big.findByName("employee54321"));
+        assertSame(employees.get(54321), big.findBySsn("0054321"));
+
+        // Employee9, and Employee90 to Employee99, and so on.
+        assertEquals(1 + 10 + 100 + 1000 + 10000, big.findByNamePrefix("Employee9", Integer.MAX_VALUE).size());
+    }
+}
@@ -4,19 +4,39 @@ import se325.util.Keyboard;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.Response;
+import java.nio.ByteBuffer;
+import java.util.Random;
 
+/**
+ * Client for the multiply servlet. Run with no arguments to multiply a single pair of numbers, entered at the
+ * keyboard. Run with the argument "batch" to multiply many random pairs in a single binary POST request.
+ */
 public class MultiplyClient {
 
+    private static final String URL = "http://localhost:8080/example_03_servlets_war_exploded/basicMultiply";
+
     public static void main(String[] args) {
 
+        Client httpClient = ClientBuilder.newClient();
+
+        if (args.length > 0 && args[0].equalsIgnoreCase("batch")) {
+            multiplyBatch(httpClient);
+        } else {
+            multiplyOne(httpClient);
+        }
+
+        httpClient.close();
+
+    }
+
+    private static void multiplyOne(Client httpClient) {
+
         int num1 = Integer.parseInt(Keyboard.prompt("Please enter first number:"));
         int num2 = Integer.parseInt(Keyboard.prompt("Please enter second number:"));
 
-        Client httpClient = ClientBuilder.newClient();
-
-        Response response = httpClient.target(
-                "http://localhost:8080/example_03_servlets_war_exploded/basicMultiply?num1="+num1+"&num2="+num2)
+        Response response = httpClient.target(URL + "?num1=" + num1 + "&num2=" + num2)
                 .request()
                 .get();
 
@@ -25,7 +45,46 @@ public class MultiplyClient {
 
         System.out.println("Result: " + result);
 
-        httpClient.close();
+    }
+
+    private static void multiplyBatch(Client httpClient) {
+
+        int count = Integer.parseInt(Keyboard.prompt("How many pairs of numbers should be multiplied?"));
+
+        // Pack the pairs into a single body, as big-endian ints.
+        Random random = new Random();
+        ByteBuffer pairs = ByteBuffer.allocate(count * 2 * Integer.BYTES);
+        for (int i = 0; i < count; i++) {
+            pairs.putInt(random.nextInt(10000));
+            pairs.putInt(random.nextInt(10000));
+        }
+
+        long start = System.nanoTime();
+        Response response = httpClient.target(URL)
+                .request("application/octet-stream")
+                .post(Entity.entity(pairs.array(), "application/octet-stream"));
+
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            System.out.println("Status: " + response.getStatus());
+            System.out.println("Message: " + response.readEntity(String.class));
+            return;
+        }
+
+        ByteBuffer products = ByteBuffer.wrap(response.readEntity(byte[].class));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Check each product against the pair it came from.
+        pairs.flip();
+        int wrong = 0;
+        for (int i = 0; i < count; i++) {
+            int expected = pairs.getInt() * pairs.getInt();
+            if (products.getInt() != expected) {
+                wrong++;
+            }
+        }
+
+        System.out.println("Status: " + response.getStatus());
+        System.out.println("Multiplied " + count + " pairs in " + elapsedMillis + "ms (" + wrong + " wrong)");
 
     }
 
@@ -0,0 +1,79 @@
+package se325.example03.metrics;
+
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of request latencies, with fixed bucket boundaries.
+ * <p>
+ * Each bucket is a {@link LongAdder}, which spreads its count over several cells when many threads update it at once,
+ * rather than having them all contend on a single value. Recording a latency is just a short scan over the bucket
+ * boundaries and an increment, so it needs no locks and allocates nothing.
+ */
+public class LatencyHistogram {
+
+    /** Upper bounds of each bucket, in microseconds. There's also an extra, unbounded, bucket after the last one. */
+    private static final long[] BOUNDS_MICROS = {
+            50, 100, 250, 500,
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+
+    /** The bucket boundaries in seconds, as plain decimals (e.g. "0.00005" rather than "5.0E-5"). */
+    private static final String[] BOUNDS_SECONDS = new String[BOUNDS_MICROS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            BOUNDS_SECONDS[i] = seconds(BOUNDS_MICROS[i], 6);
+        }
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a single latency.
+     */
+    public void record(long nanos) {
+        long micros = nanos / 1_000;
+        int i = 0;
+        while (i < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Writes out this histogram in Prometheus' text format: one cumulative count for each bucket boundary (in
+     * seconds), then the sum and count of all latencies.
+     * <p>
+     * The buckets are read one at a time while other threads may still be recording, so the numbers aren't an exact
+     * snapshot - but each one is accurate to within the requests that were in progress while it was being written.
+     */
+    public void writeTo(PrintWriter out, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            cumulative += buckets[i].sum();
+            out.println(name + "_bucket{" + labels + ",le=\"" + BOUNDS_SECONDS[i] + "\"} " + cumulative);
+        }
+        cumulative += buckets[BOUNDS_MICROS.length].sum();
+        out.println(name + "_bucket{" + labels + ",le=\"+Inf\"} " + cumulative);
+        out.println(name + "_sum{" + labels + "} " + seconds(sumNanos.sum(), 9));
+        out.println(name + "_count{" + labels + "} " + cumulative);
+    }
+
+    /**
+     * Formats a number of microseconds (scale 6) or nanoseconds (scale 9) as seconds, exactly.
+     */
+    private static String seconds(long value, int scale) {
+        return BigDecimal.valueOf(value, scale).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,86 @@
+package se325.example03.metrics;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts, in-flight gauges and latency histograms, kept separately for each servlet.
+ * <p>
+ * A single instance is shared between the {@link RequestTimingFilter}, which records into it, and the
+ * {@link se325.example03.servlets.MetricsServlet}, which reads from it. It's stored as a {@link
+ * javax.servlet.ServletContext} attribute named {@link #CONTEXT_ATTRIBUTE}.
+ */
+public class RequestMetrics {
+
+    public static final String CONTEXT_ATTRIBUTE = RequestMetrics.class.getName();
+
+    private final ConcurrentMap<String, ServletMetrics> servlets = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the metrics for the given servlet, creating them the first time that servlet is seen. After that, this is
+     * a plain lookup which allocates nothing.
+     */
+    public ServletMetrics forServlet(String servletName) {
+        ServletMetrics metrics = servlets.get(servletName);
+        if (metrics == null) {
+            metrics = servlets.computeIfAbsent(servletName, name -> new ServletMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Writes out all metrics in Prometheus' text format, with servlets in name order.
+     */
+    public void writeTo(PrintWriter out) {
+        Map<String, ServletMetrics> sorted = new TreeMap<>(servlets);
+
+        out.println("# HELP http_requests_total Number of requests which have finished.");
+        out.println("# TYPE http_requests_total counter");
+        sorted.forEach((name, metrics) ->
+                out.println("http_requests_total{" + label(name) + "} " + metrics.requests.sum()));
+
+        out.println("# HELP http_requests_in_flight Number of requests currently being handled.");
+        out.println("# TYPE http_requests_in_flight gauge");
+        sorted.forEach((name, metrics) ->
+                out.println("http_requests_in_flight{" + label(name) + "} " + metrics.inFlight.sum()));
+
+        out.println("# HELP http_request_duration_seconds Time taken to handle each request.");
+        out.println("# TYPE http_request_duration_seconds histogram");
+        sorted.forEach((name, metrics) ->
+                metrics.latency.writeTo(out, "http_request_duration_seconds", label(name)));
+    }
+
+    private static String label(String servletName) {
+        return "servlet=\"" + servletName.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * The metrics for a single servlet.
+     */
+    public static class ServletMetrics {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        /**
+         * Call when a request to this servlet starts.
+         */
+        public void started() {
+            inFlight.increment();
+        }
+
+        /**
+         * Call when a request to this servlet finishes, with the number of nanoseconds since it started.
+         */
+        public void finished(long nanos) {
+            inFlight.decrement();
+            requests.increment();
+            latency.record(nanos);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package se325.example03.metrics;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Times every request which passes through it, and records the results in the application's {@link RequestMetrics},
+ * under the name of the servlet which handled the request.
+ * <p>
+ * For ordinary requests, the hot path is a map lookup, a couple of {@link java.util.concurrent.atomic.LongAdder}
+ * increments and two calls to {@link System#nanoTime()} - nothing is allocated. Asynchronous requests (such as
+ * those to {@link se325.example03.servlets.AsyncMultiplyServlet}) are still being handled after the filter chain
+ * returns, so for those, a small listener is registered to record the time once the request completes.
+ */
+public class RequestTimingFilter implements Filter {
+
+    private RequestMetrics metrics;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        metrics = new RequestMetrics();
+        filterConfig.getServletContext().setAttribute(RequestMetrics.CONTEXT_ATTRIBUTE, metrics);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        RequestMetrics.ServletMetrics servletMetrics =
+                metrics.forServlet(req.getHttpServletMapping().getServletName());
+
+        servletMetrics.started();
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (req.isAsyncStarted()) {
+                req.getAsyncContext().addListener(new AsyncTimer(servletMetrics, start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                servletMetrics.finished(System.nanoTime() - start);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Records the time taken by an asynchronous request, once it's finished.
+     */
+    private static class AsyncTimer implements AsyncListener {
+
+        private final RequestMetrics.ServletMetrics servletMetrics;
+        private final long start;
+
+        AsyncTimer(RequestMetrics.ServletMetrics servletMetrics, long start) {
+            this.servletMetrics = servletMetrics;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            // Timeouts and errors still end with a call to onComplete(), so we only need to record here.
+            servletMetrics.finished(System.nanoTime() - start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
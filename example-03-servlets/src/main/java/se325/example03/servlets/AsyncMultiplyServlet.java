@@ -0,0 +1,179 @@
+package se325.example03.servlets;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Multiplies any number of pairs of numbers, without tying up one of the servlet container's threads while waiting
+ * for a slow client.
+ * <p>
+ * Clients POST a body of <code>application/octet-stream</code> made up of pairs of 32-bit big-endian ints, and get
+ * back each pair's product as a 32-bit big-endian int, in the same order. A body which ends part-way through a pair
+ * gets a 400 Bad Request, as it does from {@link MultiplyServlet}, unless some products have already been sent.
+ * <p>
+ * The servlet puts the request into asynchronous mode, and uses non-blocking I/O (Servlet 3.1's {@link ReadListener}
+ * and {@link WriteListener}) to read pairs and write products as the client sends and receives them. Between those
+ * callbacks, no container thread is being used for the request at all - so the container can serve many more slow
+ * clients at once than it has threads.
+ */
+public class AsyncMultiplyServlet extends HttpServlet {
+
+    /** How long a client has to finish sending and receiving, before its request is abandoned. */
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+
+        AsyncContext async = req.startAsync();
+        async.setTimeout(TIMEOUT_MILLIS);
+
+        resp.setContentType("application/octet-stream");
+
+        MultiplyStream stream = new MultiplyStream(getServletContext(), async, req.getInputStream(),
+                resp.getOutputStream());
+        req.getInputStream().setReadListener(stream);
+        resp.getOutputStream().setWriteListener(stream);
+
+        // Return straight away, freeing up this thread. The listener does the rest.
+    }
+
+    /**
+     * Reads pairs and writes products for a single request. The container calls {@link #onDataAvailable()} when there
+     * are more bytes to read, and {@link #onWritePossible()} when there's room to write more. Both just make as much
+     * progress as they can without blocking.
+     */
+    private static class MultiplyStream implements ReadListener, WriteListener {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final ServletContext context;
+        private final AsyncContext async;
+        private final ServletInputStream in;
+        private final ServletOutputStream out;
+
+        /** Bytes read from the client which haven't been multiplied yet (in "write" mode, i.e. ready to be filled). */
+        private final ByteBuffer pairs = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /** Products which haven't been written to the client yet (in "read" mode, i.e. ready to be drained). */
+        private final ByteBuffer products = ByteBuffer.allocate(BUFFER_SIZE / 2).flip();
+
+        private boolean allDataRead;
+        private boolean done;
+
+        MultiplyStream(ServletContext context, AsyncContext async, ServletInputStream in, ServletOutputStream out) {
+            this.context = context;
+            this.async = async;
+            this.in = in;
+            this.out = out;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            pump();
+        }
+
+        @Override
+        public void onAllDataRead() throws IOException {
+            allDataRead = true;
+            pump();
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            pump();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            t.printStackTrace();
+            async.complete();
+        }
+
+        /**
+         * Alternates between writing out products and reading in more pairs, until either the client has nothing more
+         * for us to read, or isn't ready to receive more. Whichever it was, the container will call us again once
+         * that changes. We only read more once all the products we have are written, so a client which sends faster
+         * than it receives can't make us buffer an unbounded number of products.
+         * <p>
+         * The container may call the read and write callbacks from different threads, so this is synchronized.
+         */
+        private synchronized void pump() throws IOException {
+            while (!done) {
+
+                if (products.hasRemaining()) {
+                    if (!out.isReady()) {
+                        return;
+                    }
+                    out.write(products.array(), products.position(), products.remaining());
+                    products.position(products.limit());
+                    continue;
+                }
+
+                if (allDataRead || in.isFinished()) {
+                    if (pairs.position() != 0) {
+                        rejectPartialPair();
+                    }
+                    done = true;
+                    async.complete();
+                    return;
+                }
+
+                if (!in.isReady()) {
+                    return;
+                }
+
+                int n = in.read(pairs.array(), pairs.position(), pairs.remaining());
+                if (n > 0) {
+                    pairs.position(pairs.position() + n);
+                    multiplyPairs();
+                }
+            }
+        }
+
+        /**
+         * Multiplies all the whole pairs we've read so far, leaving any partial pair behind to be completed by the
+         * next read.
+         */
+        private void multiplyPairs() {
+            pairs.flip();
+            products.clear();
+            while (pairs.remaining() >= 8) {
+                products.putInt(pairs.getInt() * pairs.getInt());
+            }
+            products.flip();
+            pairs.compact();
+        }
+
+        /**
+         * Responds with 400 Bad Request if nothing has been sent yet. Otherwise, some products have already gone to the
+         * client with a 200 status. Unlike {@link MultiplyServlet}, we can't make the container abort the response by
+         * throwing, as the error would just come back to {@link #onError(Throwable)}, which still has to complete it.
+         * So the most we can do is log it.
+         */
+        private void rejectPartialPair() throws IOException {
+            String message = "Body must be made up of whole pairs of ints";
+            HttpServletResponse resp = (HttpServletResponse) async.getResponse();
+            if (resp.isCommitted()) {
+                context.log(message + "; the response was already committed");
+                return;
+            }
+            resp.reset();
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, message);
+        }
+    }
+}
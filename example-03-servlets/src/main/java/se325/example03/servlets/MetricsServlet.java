@@ -0,0 +1,32 @@
+package se325.example03.servlets;
+
+import se325.example03.metrics.RequestMetrics;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Shows the request counts, in-flight requests and latencies recorded by the
+ * {@link se325.example03.metrics.RequestTimingFilter}, as plain text in the format Prometheus scrapes.
+ */
+public class MetricsServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+
+        RequestMetrics metrics = (RequestMetrics) getServletContext().getAttribute(RequestMetrics.CONTEXT_ATTRIBUTE);
+        if (metrics == null) {
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timing filter is not configured");
+            return;
+        }
+
+        resp.setContentType("text/plain; version=0.0.4");
+
+        PrintWriter out = resp.getWriter();
+        metrics.writeTo(out);
+
+    }
+}
@@ -1,13 +1,31 @@
 package se325.example03.servlets;
 
-import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
+/**
+ * Multiplies numbers.
+ * <p>
+ * A GET with <code>num1</code> and <code>num2</code> query parameters multiplies a single pair. The result is sent as
+ * <code>text/plain</code>, unless the client's <code>Accept</code> header asks for
+ * <code>application/octet-stream</code>, in which case it's sent as a single 32-bit big-endian int.
+ * <p>
+ * A POST of <code>application/octet-stream</code> multiplies a whole batch of pairs in one request. The body is
+ * made up of pairs of 32-bit big-endian ints, and the response is each pair's product as a 32-bit big-endian int,
+ * in the same order. This saves parsing query strings (and making a whole HTTP request) for every single pair.
+ */
 public class MultiplyServlet extends HttpServlet {
 
+    private static final String OCTET_STREAM = "application/octet-stream";
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
 
@@ -16,12 +34,76 @@ public class MultiplyServlet extends HttpServlet {
 
         int result = num1 * num2;
 
-        resp.setContentType("text/plain");
-        resp.getWriter().print(result);
+        String accept = req.getHeader("Accept");
+        if (accept != null && accept.contains(OCTET_STREAM) && !accept.contains("text/plain")) {
+            resp.setContentType(OCTET_STREAM);
+            resp.setContentLength(Integer.BYTES);
+            DataOutputStream out = new DataOutputStream(resp.getOutputStream());
+            out.writeInt(result);
+            out.flush();
+        } else {
+            resp.setContentType("text/plain");
+            resp.getWriter().print(result);
+        }
+
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+
+        String contentType = req.getContentType();
+        if (contentType == null || !contentType.startsWith(OCTET_STREAM)) {
+            resp.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                    "Batches must be sent as " + OCTET_STREAM);
+            return;
+        }
 
-//        resp.setContentType("application/octet-stream");
-//        DataOutputStream out = new DataOutputStream(resp.getOutputStream());
-//        out.writeInt(result);
+        // If we know how many pairs there are, we know exactly how long the response will be.
+        long length = req.getContentLengthLong();
+        if (length >= 0) {
+            if (length % (2 * Integer.BYTES) != 0) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Body must be made up of whole pairs of ints");
+                return;
+            }
+            resp.setContentLengthLong(length / 2);
+        }
+
+        resp.setContentType(OCTET_STREAM);
+
+        InputStream in = new BufferedInputStream(req.getInputStream());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(resp.getOutputStream()));
+
+        // Read a whole pair at a time, so that a body which stops part-way through one (which can only be spotted
+        // here, for a chunked body with no Content-Length) is an error rather than looking like a clean end.
+        byte[] pair = new byte[2 * Integer.BYTES];
+        ByteBuffer pairBuffer = ByteBuffer.wrap(pair);
+        while (true) {
+            int read = in.readNBytes(pair, 0, pair.length);
+            if (read == 0) {
+                break;
+            }
+            if (read < pair.length) {
+                rejectPartialPair(resp);
+                return;
+            }
+            out.writeInt(pairBuffer.getInt(0) * pairBuffer.getInt(Integer.BYTES));
+        }
+
+        out.flush();
+
+    }
 
+    /**
+     * Responds with 400 Bad Request if nothing has been sent yet. Otherwise, some products have already gone to the
+     * client with a 200 status, so all we can do is fail, which makes the container abort the response rather than end
+     * it cleanly, and the client sees it as truncated.
+     */
+    private static void rejectPartialPair(HttpServletResponse resp) throws IOException {
+        String message = "Body must be made up of whole pairs of ints";
+        if (resp.isCommitted()) {
+            throw new EOFException(message);
+        }
+        resp.reset();
+        resp.sendError(HttpServletResponse.SC_BAD_REQUEST, message);
     }
 }
@@ -0,0 +1,42 @@
+package se325.example04.client;
+
+import javax.jws.WebMethod;
+import javax.jws.WebService;
+import javax.jws.soap.SOAPBinding;
+import javax.xml.ws.AsyncHandler;
+import javax.xml.ws.Response;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * The client's view of the {@link se325.example04.server.HelloWorld} service. As well as the service's own
+ * operations, it declares asynchronous versions of each, in the two forms JAX-WS supports: one returning a
+ * {@link Response} to poll or wait on, and one which calls an {@link AsyncHandler} when the reply arrives. These are
+ * what <code>wsimport</code> generates when asked for async bindings.
+ * <p>
+ * The <code>name</code> and <code>targetNamespace</code> must match the service's WSDL, so that this interface is
+ * bound to the same port type as the service's <code>HelloWorld</code> interface.
+ */
+@WebService(name = "HelloWorld", targetNamespace = "http://server.example04.se325/")
+@SOAPBinding(style = SOAPBinding.Style.RPC)
+public interface HelloWorldAsync {
+
+    @WebMethod
+    String getHelloWorldAsString(String name);
+
+    @WebMethod(operationName = "getHelloWorldAsString")
+    Response<String> getHelloWorldAsStringAsync(String name);
+
+    @WebMethod(operationName = "getHelloWorldAsString")
+    Future<?> getHelloWorldAsStringAsync(String name, AsyncHandler<String> handler);
+
+    @WebMethod
+    List<String> getHelloWorldAsStrings(List<String> names);
+
+    @WebMethod(operationName = "getHelloWorldAsStrings")
+    Response<List<String>> getHelloWorldAsStringsAsync(List<String> names);
+
+    @WebMethod(operationName = "getHelloWorldAsStrings")
+    Future<?> getHelloWorldAsStringsAsync(List<String> names, AsyncHandler<List<String>> handler);
+
+}
@@ -0,0 +1,144 @@
+package se325.example04.client;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.Response;
+import javax.xml.ws.Service;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A reusable client for the HelloWorld service, which many threads can share.
+ * <p>
+ * Fetching the WSDL and building a port proxy are by far the most expensive parts of a JAX-WS call, so this class
+ * does both exactly once, up front: it creates a single {@link Service}, and a fixed number of {@link HelloWorldAsync}
+ * ports from it. A port isn't safe to use from two threads at once, so each call borrows a port for as long as it
+ * needs it, and then puts it back. When every port is in use, callers wait for one to come back.
+ * <p>
+ * Asynchronous calls only hold onto their port until the request has been sent and the reply has arrived; the calling
+ * thread is free to carry on in the meantime.
+ */
+public class HelloWorldClientPool implements AutoCloseable {
+
+    private static final QName SERVICE_NAME = new QName("http://server.example04.se325/", "HelloWorldImplService");
+    private static final QName PORT_NAME = new QName("http://server.example04.se325/", "HelloWorldImplPort");
+
+    private final BlockingQueue<HelloWorldAsync> ports;
+
+    /**
+     * Fetches the service's WSDL from the given URL and creates the given number of ports.
+     */
+    public HelloWorldClientPool(URL url, int size) {
+        Service service = Service.create(url, SERVICE_NAME);
+        ports = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            ports.add(service.getPort(PORT_NAME, HelloWorldAsync.class));
+        }
+    }
+
+    /**
+     * Greets the given name, waiting for the reply.
+     */
+    public String greet(String name) throws InterruptedException {
+        HelloWorldAsync port = ports.take();
+        try {
+            return port.getHelloWorldAsString(name);
+        } finally {
+            ports.add(port);
+        }
+    }
+
+    /**
+     * Greets all the given names with a single request, waiting for the reply.
+     */
+    public List<String> greetAll(List<String> names) throws InterruptedException {
+        HelloWorldAsync port = ports.take();
+        try {
+            return orEmpty(port.getHelloWorldAsStrings(names));
+        } finally {
+            ports.add(port);
+        }
+    }
+
+    /**
+     * Starts greeting the given name, without waiting for the reply. If every port is in use, this does still wait
+     * for one to become free, so that callers can't queue up an unbounded number of requests.
+     */
+    public CompletableFuture<String> greetAsync(String name) throws InterruptedException {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        HelloWorldAsync port = ports.take();
+        try {
+            port.getHelloWorldAsStringAsync(name, response -> {
+                ports.add(port);
+                complete(result, response);
+            });
+        } catch (RuntimeException e) {
+            ports.add(port);
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Starts greeting all the given names with a single request, without waiting for the reply.
+     */
+    public CompletableFuture<List<String>> greetAllAsync(List<String> names) throws InterruptedException {
+        CompletableFuture<List<String>> result = new CompletableFuture<>();
+        HelloWorldAsync port = ports.take();
+        try {
+            port.getHelloWorldAsStringsAsync(names, response -> {
+                ports.add(port);
+                complete(result, response);
+            });
+        } catch (RuntimeException e) {
+            ports.add(port);
+            throw e;
+        }
+        return result.thenApply(HelloWorldClientPool::orEmpty);
+    }
+
+    /**
+     * Closes all of the ports which aren't currently in use.
+     */
+    @Override
+    public void close() {
+        List<HelloWorldAsync> idle = new ArrayList<>();
+        ports.drainTo(idle);
+        for (HelloWorldAsync port : idle) {
+            if (port instanceof Closeable) {
+                try {
+                    ((Closeable) port).close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes the given future with the outcome of a finished JAX-WS response.
+     */
+    private static <T> void complete(CompletableFuture<T> result, Response<T> response) {
+        try {
+            result.complete(response.get());
+        } catch (ExecutionException e) {
+            result.completeExceptionally(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * An empty list is sent as nothing at all, which arrives as null.
+     */
+    private static List<String> orEmpty(List<String> list) {
+        return list == null ? new ArrayList<>() : list;
+    }
+}
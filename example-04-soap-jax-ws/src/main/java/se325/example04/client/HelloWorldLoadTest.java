@@ -0,0 +1,84 @@
+package se325.example04.client;
+
+import se325.example04.server.HelloWorld;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.Service;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how many <code>getHelloWorldAsString()</code> calls per second a running {@link
+ * se325.example04.server.HelloWorldPublisher} can handle, with 1, 2, 4, ... concurrent clients, up to twice the number
+ * of cores on this machine.
+ * <p>
+ * Run the publisher in each of its modes and compare. In <code>default</code> mode, throughput stays flat however
+ * many clients there are, because requests are handled one at a time. In <code>pool</code> or <code>virtual</code>
+ * mode, it should keep climbing until every core is busy.
+ * <p>
+ * Usage: <code>HelloWorldLoadTest [secondsPerStep]</code>
+ */
+public class HelloWorldLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int secondsPerStep = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int maxClients = Runtime.getRuntime().availableProcessors() * 2;
+
+        URL url = new URL("http://localhost:10000/ws/hello");
+        QName qname = new QName("http://server.example04.se325/", "HelloWorldImplService");
+
+        // Fetch the WSDL just once. Each client thread gets its own port from it, as ports aren't thread-safe.
+        Service service = Service.create(url, qname);
+
+        // Warm up both sides, so the first step isn't penalised for class loading and JIT compilation.
+        run(service, 1, 1);
+
+        System.out.println("clients  calls/sec");
+        for (int clients = 1; clients <= maxClients; clients *= 2) {
+            long calls = run(service, clients, secondsPerStep);
+            System.out.printf("%7d  %9.0f%n", clients, calls / (double) secondsPerStep);
+        }
+    }
+
+    /**
+     * Runs the given number of client threads, each calling the service as fast as it can, for the given number of
+     * seconds.
+     *
+     * @return the total number of calls made by all threads.
+     */
+    private static long run(Service service, int clients, int seconds) throws InterruptedException {
+        LongAdder calls = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            HelloWorld port = service.getPort(HelloWorld.class);
+            String name = "client-" + i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    while (System.nanoTime() < deadline[0]) {
+                        port.getHelloWorldAsString(name);
+                        calls.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        deadline[0] = System.nanoTime() + seconds * 1_000_000_000L;
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return calls.sum();
+    }
+}
@@ -0,0 +1,45 @@
+package se325.example04.client;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Greets several names at once using a {@link HelloWorldClientPool}: first with one batch request for all of them,
+ * then with a separate asynchronous request for each, all in flight at the same time.
+ */
+public class HelloWorldPoolClient {
+
+    public static void main(String[] args) throws Exception {
+
+        URL url = new URL("http://localhost:10000/ws/hello");
+
+        try (HelloWorldClientPool client = new HelloWorldClientPool(url, 4)) {
+
+            String input = Keyboard.prompt("Enter some names, separated by commas:");
+            List<String> names = new ArrayList<>();
+            for (String name : input.split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim());
+                }
+            }
+
+            System.out.println("One batch request:");
+            for (String greeting : client.greetAll(names)) {
+                System.out.println("  Server says: " + greeting);
+            }
+
+            System.out.println("One asynchronous request per name:");
+            List<CompletableFuture<String>> greetings = new ArrayList<>();
+            for (String name : names) {
+                greetings.add(client.greetAsync(name));
+            }
+            CompletableFuture.allOf(greetings.toArray(new CompletableFuture<?>[0])).join();
+            for (CompletableFuture<String> greeting : greetings) {
+                System.out.println("  Server says: " + greeting.join());
+            }
+        }
+
+    }
+}
@@ -3,6 +3,7 @@ package se325.example04.server;
 import javax.jws.WebMethod;
 import javax.jws.WebService;
 import javax.jws.soap.SOAPBinding;
+import java.util.List;
 
 @WebService
 @SOAPBinding(style = SOAPBinding.Style.RPC)
@@ -11,4 +12,11 @@ public interface HelloWorld {
     @WebMethod
     String getHelloWorldAsString(String name);
 
+    /**
+     * Greets every one of the given names, in a single SOAP request and response. The returned list has one greeting
+     * for each name, in the same order.
+     */
+    @WebMethod
+    List<String> getHelloWorldAsStrings(List<String> names);
+
 }
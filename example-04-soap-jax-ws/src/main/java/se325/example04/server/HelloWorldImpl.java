@@ -1,6 +1,8 @@
 package se325.example04.server;
 
 import javax.jws.WebService;
+import java.util.ArrayList;
+import java.util.List;
 
 @WebService(endpointInterface = "se325.example04.server.HelloWorld")
 public class HelloWorldImpl implements HelloWorld {
@@ -9,4 +11,17 @@ public class HelloWorldImpl implements HelloWorld {
     public String getHelloWorldAsString(String name) {
         return "Hello " + name + ", from your friendly JAX-WS SOAP Service!";
     }
+
+    @Override
+    public List<String> getHelloWorldAsStrings(List<String> names) {
+        // An empty list arrives as null, as nothing at all is sent for it.
+        if (names == null) {
+            return new ArrayList<>();
+        }
+        List<String> greetings = new ArrayList<>(names.size());
+        for (String name : names) {
+            greetings.add(getHelloWorldAsString(name));
+        }
+        return greetings;
+    }
 }
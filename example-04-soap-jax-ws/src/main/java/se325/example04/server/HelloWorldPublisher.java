@@ -1,12 +1,33 @@
 package se325.example04.server;
 
 import javax.xml.ws.Endpoint;
+import java.util.concurrent.Executor;
 
+/**
+ * Usage: <code>HelloWorldPublisher [default|pool|virtual] [poolSize] [queueDepth] [abort|caller-runs|discard]</code>.
+ * See {@link PublisherMode} for what each mode does. The default is <code>default</code>, which leaves the JAX-WS
+ * runtime's own executor in place.
+ */
 public class HelloWorldPublisher {
 
     public static void main(String[] args) {
-        Endpoint.publish("http://localhost:10000/ws/hello", new HelloWorldImpl());
+        PublisherMode mode = args.length > 0 ? PublisherMode.parse(args[0]) : PublisherMode.DEFAULT;
+        int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : PublisherMode.DEFAULT_POOL_SIZE;
+        int queueDepth = args.length > 2 ? Integer.parseInt(args[2]) : PublisherMode.DEFAULT_QUEUE_DEPTH;
+        PublisherMode.Rejection rejection = args.length > 3
+                ? PublisherMode.Rejection.parse(args[3]) : PublisherMode.Rejection.CALLER_RUNS;
+
+        Endpoint endpoint = Endpoint.create(new HelloWorldImpl());
+
+        // The executor must be set before the endpoint is published.
+        Executor executor = mode.createExecutor(poolSize, queueDepth, rejection);
+        if (executor != null) {
+            endpoint.setExecutor(executor);
+        }
+
+        endpoint.publish("http://localhost:10000/ws/hello");
         System.out.println("WSDL published: http://localhost:10000/ws/hello");
+        System.out.println("Handling requests in " + mode + " mode");
     }
 
 }
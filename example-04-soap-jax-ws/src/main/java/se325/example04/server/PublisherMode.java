@@ -0,0 +1,115 @@
+package se325.example04.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The different executors {@link HelloWorldPublisher} can give its {@link javax.xml.ws.Endpoint}, to handle incoming
+ * SOAP requests.
+ */
+public enum PublisherMode {
+
+    /**
+     * Don't set an executor, and let the JAX-WS runtime use its default. With the JDK's built-in HTTP server, that
+     * means every request is handled on the single thread which accepts connections, one at a time.
+     */
+    DEFAULT,
+
+    /**
+     * Handle requests on a fixed-size pool of platform threads. Requests which arrive while all threads are busy wait
+     * in a bounded queue; when that's full too, the {@link Rejection} policy decides what happens.
+     */
+    POOL,
+
+    /** Handle each request on its own virtual thread. */
+    VIRTUAL;
+
+    /** Default number of threads for {@link #POOL} mode. */
+    public static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    /** Default number of requests which can wait for a thread in {@link #POOL} mode. */
+    public static final int DEFAULT_QUEUE_DEPTH = 1024;
+
+    /**
+     * What a {@link #POOL} executor does with a request when all of its threads are busy and its queue is full.
+     */
+    public enum Rejection {
+
+        /** Refuse the request. The client's connection is closed without a response. */
+        ABORT(new ThreadPoolExecutor.AbortPolicy()),
+
+        /**
+         * Handle the request on the thread which accepted it. That thread stops accepting new connections until it's
+         * done, which pushes back on clients instead of dropping their requests.
+         */
+        CALLER_RUNS(new ThreadPoolExecutor.CallerRunsPolicy()),
+
+        /** Silently drop the request. */
+        DISCARD(new ThreadPoolExecutor.DiscardPolicy());
+
+        private final RejectedExecutionHandler handler;
+
+        Rejection(RejectedExecutionHandler handler) {
+            this.handler = handler;
+        }
+
+        /**
+         * Parses a policy name, as given on the command line, ignoring case. Dashes may be used instead of
+         * underscores.
+         */
+        public static Rejection parse(String name) {
+            return valueOf(name.toUpperCase().replace('-', '_'));
+        }
+    }
+
+    /**
+     * Parses a mode name, as given on the command line, ignoring case.
+     */
+    public static PublisherMode parse(String name) {
+        return valueOf(name.toUpperCase());
+    }
+
+    /**
+     * Creates an executor which handles requests according to this mode.
+     *
+     * @param poolSize   the number of threads to use in {@link #POOL} mode.
+     * @param queueDepth the number of requests which can wait for a thread in {@link #POOL} mode. If zero, requests
+     *                   are handed straight to an idle thread, or rejected if there isn't one.
+     * @param rejection  what to do with requests which can't be queued in {@link #POOL} mode.
+     * @return the executor, or <code>null</code> in {@link #DEFAULT} mode.
+     */
+    public Executor createExecutor(int poolSize, int queueDepth, Rejection rejection) {
+        switch (this) {
+            case POOL:
+                BlockingQueue<Runnable> queue = queueDepth == 0 ? new SynchronousQueue<>()
+                        : queueDepth == Integer.MAX_VALUE ? new LinkedBlockingQueue<>()
+                        : new ArrayBlockingQueue<>(queueDepth);
+                return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue,
+                        rejection.handler);
+            case VIRTUAL:
+                return newVirtualThreadPerTaskExecutor();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Virtual threads arrived in Java 21, but this project targets Java 11, so we have to look the factory method up
+     * reflectively. On an older JVM we fall back to an unbounded pool of platform threads.
+     */
+    private static Executor newVirtualThreadPerTaskExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads need Java 21 or later; using a cached thread pool instead.");
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
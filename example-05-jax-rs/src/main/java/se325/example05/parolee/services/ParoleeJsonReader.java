@@ -0,0 +1,175 @@
+package se325.example05.parolee.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import se325.example05.parolee.domain.Gender;
+import se325.example05.parolee.domain.Parolee;
+
+/**
+ * Reads JSON representations of Parolees, using Jackson's streaming {@link JsonParser} API.
+ * <p>
+ * Parsing into a {@link com.fasterxml.jackson.databind.JsonNode} tree first would create a node object for every
+ * value in the document, only for us to copy them into a Parolee and throw them away. Instead, this class pulls tokens
+ * from the parser one at a time, and sets each Parolee field as soon as its value is read.
+ * <p>
+ * Creating an ObjectMapper is expensive, so all requests share a single {@link ObjectReader}. ObjectReaders are
+ * immutable and thread-safe, and the parsers they create reuse buffers and a table of already-seen field names, so
+ * parsing a Parolee allocates little more than the Parolee itself and its name Strings.
+ */
+public class ParoleeJsonReader {
+
+    private static final ObjectReader READER = new ObjectMapper().reader();
+
+    private ParoleeJsonReader() {
+    }
+
+    /**
+     * Creates a parser over the given stream, for reading several Parolees one after another (for example, from
+     * newline-delimited JSON) using {@link #readParolee(JsonParser)}.
+     */
+    public static JsonParser createParser(InputStream is) throws IOException {
+        return READER.getFactory().createParser(is);
+    }
+
+    /**
+     * Reads a single Parolee from the given stream. The id is optional, and defaults to 0; all other fields are
+     * required, and must be strings. Any fields which Parolees don't have are skipped.
+     *
+     * @throws IOException if the stream doesn't contain a valid JSON representation of a Parolee.
+     */
+    public static Parolee readParolee(InputStream is) throws IOException {
+        try (JsonParser parser = READER.getFactory().createParser(is)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            return readParolee(parser);
+        }
+    }
+
+    /**
+     * Reads a single Parolee from the given parser, whose current token must be the start of the Parolee's JSON
+     * object. Afterwards, the current token is the end of that object.
+     */
+    public static Parolee readParolee(JsonParser parser) throws IOException {
+        Parolee parolee = new Parolee();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "id":
+                    if (value != JsonToken.VALUE_NULL) {
+                        expect(parser, JsonToken.VALUE_NUMBER_INT, field);
+                        parolee.setId(parser.getLongValue());
+                    }
+                    break;
+                case "firstName":
+                    expect(parser, JsonToken.VALUE_STRING, field);
+                    parolee.setFirstName(parser.getText());
+                    break;
+                case "lastName":
+                    expect(parser, JsonToken.VALUE_STRING, field);
+                    parolee.setLastName(parser.getText());
+                    break;
+                case "gender":
+                    expect(parser, JsonToken.VALUE_STRING, field);
+                    parolee.setGender(readGender(parser));
+                    break;
+                case "dateOfBirth":
+                    expect(parser, JsonToken.VALUE_STRING, field);
+                    parolee.setDateOfBirth(readDate(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (parolee.getFirstName() == null || parolee.getLastName() == null
+                || parolee.getGender() == null || parolee.getDateOfBirth() == null) {
+            throw new JsonParseException(parser, "Parolee is missing a required field");
+        }
+
+        return parolee;
+    }
+
+    /**
+     * Checks the type of a known field's value. In particular, this stops an object or array value from being read
+     * as if its own fields were the Parolee's.
+     */
+    private static void expect(JsonParser parser, JsonToken expected, String field) throws JsonParseException {
+        if (parser.currentToken() != expected) {
+            throw new JsonParseException(parser, "Unexpected value for " + field + ": " + parser.currentToken());
+        }
+    }
+
+    /**
+     * Reads a Gender, by comparing the parser's text buffer against each Gender's name, without first copying the
+     * text into a String.
+     */
+    private static Gender readGender(JsonParser parser) throws IOException {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        for (Gender gender : Gender.values()) {
+            String name = gender.name();
+            if (name.length() == length && regionMatches(name, text, offset)) {
+                return gender;
+            }
+        }
+        throw new JsonParseException(parser, "Unknown gender: " + parser.getText());
+    }
+
+    private static boolean regionMatches(String s, char[] text, int offset) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != text[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads an ISO date (e.g. 1899-01-17) straight from the parser's text buffer. Anything not in exactly that form
+     * is handed to {@link LocalDate#parse(CharSequence)} instead.
+     */
+    private static LocalDate readDate(JsonParser parser) throws IOException {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        if (length == 10 && text[offset + 4] == '-' && text[offset + 7] == '-') {
+            int year = digits(text, offset, 4);
+            int month = digits(text, offset + 5, 2);
+            int day = digits(text, offset + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(parser.getText());
+    }
+
+    /**
+     * Parses the given number of decimal digits, or returns -1 if any of them isn't a digit.
+     */
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,149 @@
+package se325.example05.parolee.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import se325.example05.parolee.domain.Gender;
+import se325.example05.parolee.domain.Parolee;
+
+/**
+ * Writes JSON representations of Parolees, using Jackson's streaming {@link JsonGenerator} API.
+ * <p>
+ * Rather than building up each document as a String, the generator encodes each value straight into a buffer which
+ * is flushed to the underlying OutputStream as it fills up. Field names and Gender values never change, so they're
+ * encoded once, up front, as {@link SerializedString}s; dates are written from their year, month and day without
+ * going through a formatter. A single {@link JsonFactory} is shared by all threads, as it's thread-safe and is where
+ * Jackson keeps its reusable buffers.
+ */
+public class ParoleeJsonWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializedString LAST_NAME = new SerializedString("lastName");
+    private static final SerializedString GENDER = new SerializedString("gender");
+    private static final SerializedString DATE_OF_BIRTH = new SerializedString("dateOfBirth");
+
+    private static final SerializedString[] GENDERS = new SerializedString[Gender.values().length];
+
+    static {
+        for (Gender gender : Gender.values()) {
+            GENDERS[gender.ordinal()] = new SerializedString(gender.name());
+        }
+    }
+
+    private ParoleeJsonWriter() {
+    }
+
+    /**
+     * Writes a single Parolee as a JSON object to the given stream. The stream is flushed, but not closed.
+     */
+    public static void writeParolee(OutputStream os, Parolee parolee) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(os, JsonEncoding.UTF8)) {
+            writeParolee(generator, parolee, new char[10]);
+        }
+    }
+
+    /**
+     * Writes the given Parolees as a JSON array to the given stream, one at a time, as they're iterated over. The
+     * stream is flushed, but not closed.
+     */
+    public static void writeParolees(OutputStream os, Iterable<Parolee> parolees) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(os, JsonEncoding.UTF8)) {
+            char[] dateBuffer = new char[10];
+            generator.writeStartArray();
+            for (Parolee parolee : parolees) {
+                writeParolee(generator, parolee, dateBuffer);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes the given Parolees as newline-delimited JSON (one JSON object per line) to the given stream, one at a
+     * time, as they're iterated over. The stream is flushed, but not closed.
+     */
+    public static void writeParoleesNdjson(OutputStream os, Iterable<Parolee> parolees) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(os, JsonEncoding.UTF8)) {
+            char[] dateBuffer = new char[10];
+
+            // Each Parolee ends with a newline, so we don't want a space before the next one, too.
+            generator.setRootValueSeparator(null);
+
+            for (Parolee parolee : parolees) {
+                writeParolee(generator, parolee, dateBuffer);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static void writeParolee(JsonGenerator generator, Parolee parolee, char[] dateBuffer)
+            throws IOException {
+
+        generator.writeStartObject();
+
+        generator.writeFieldName(ID);
+        generator.writeNumber(parolee.getId());
+
+        generator.writeFieldName(FIRST_NAME);
+        generator.writeString(parolee.getFirstName());
+
+        generator.writeFieldName(LAST_NAME);
+        generator.writeString(parolee.getLastName());
+
+        generator.writeFieldName(GENDER);
+        Gender gender = parolee.getGender();
+        if (gender == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(GENDERS[gender.ordinal()]);
+        }
+
+        generator.writeFieldName(DATE_OF_BIRTH);
+        writeDate(generator, parolee.getDateOfBirth(), dateBuffer);
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes a date in ISO format (e.g. 1899-01-17), filling in the given 10-character buffer rather than creating a
+     * new String. Years outside 0000-9999 need a sign or extra digits, so those fall back to {@link
+     * LocalDate#toString()}.
+     */
+    private static void writeDate(JsonGenerator generator, LocalDate date, char[] buffer) throws IOException {
+        if (date == null) {
+            generator.writeNull();
+            return;
+        }
+
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            generator.writeString(date.toString());
+            return;
+        }
+
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+
+        buffer[0] = (char) ('0' + year / 1000);
+        buffer[1] = (char) ('0' + year / 100 % 10);
+        buffer[2] = (char) ('0' + year / 10 % 10);
+        buffer[3] = (char) ('0' + year % 10);
+        buffer[4] = '-';
+        buffer[5] = (char) ('0' + month / 10);
+        buffer[6] = (char) ('0' + month % 10);
+        buffer[7] = '-';
+        buffer[8] = (char) ('0' + day / 10);
+        buffer[9] = (char) ('0' + day % 10);
+
+        generator.writeString(buffer, 0, 10);
+    }
+}
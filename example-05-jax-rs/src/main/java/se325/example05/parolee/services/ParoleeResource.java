@@ -1,21 +1,21 @@
 package se325.example05.parolee.services;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
 import java.net.URI;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,12 +27,23 @@ import se325.example05.parolee.domain.Parolee;
  * <p>
  * ParoleeResource implements a WEB service with the following interface:
  * <p>
+ * - GET    <base-uri>/parolees?lastName=...&gender=...&bornAfter=...&bornBefore=...
+ * Retrieves all parolees which match the given (optional) criteria, or all parolees if there are no criteria. The
+ * format of the returned data is a JSON array.
+ * <p>
  * - GET    <base-uri>/parolees/{id}
  * Retrieves a parolee based on their unique id. The format of the returned data is JSON.
  * <p>
  * - POST   <base-uri>/parolees
  * Creates a new Parolee. The HTTP post message contains a JSON representation of the parolee to be created.
  * <p>
+ * - POST   <base-uri>/parolees/bulk
+ * Creates many new Parolees at once. The HTTP post message contains newline-delimited JSON (one JSON representation
+ * of a parolee per line).
+ * <p>
+ * - GET    <base-uri>/parolees/export
+ * Retrieves all parolees, as newline-delimited JSON.
+ * <p>
  * - PUT    <base-uri>/parolees/{id}
  * Updates a parolee, identified by their id.The HTTP PUT message contains a JSON document describing the new state
  * of the parolee.
@@ -46,36 +57,98 @@ import se325.example05.parolee.domain.Parolee;
 @Path("/parolees")
 public class ParoleeResource {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+    /**
+     * Media type for newline-delimited JSON, where each line holds a complete JSON document.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * The number of Parolees a bulk import parses before storing them all at once.
+     */
+    private static final int IMPORT_BATCH_SIZE = 1000;
 
     private static Logger _logger = LoggerFactory.getLogger(ParoleeResource.class);
 
-    private Map<Long, Parolee> _paroleeDB = new ConcurrentHashMap<>();
+    private ParoleeStore _paroleeDB = new ParoleeStore();
     private AtomicLong _idCounter = new AtomicLong();
 
+    /**
+     * Retrieves the Parolees which match all of the given criteria. This method returns a 200 response along with a
+     * JSON array containing a representation of each matching Parolee, or a 400 response if a criterion is invalid.
+     * <p>
+     * Matching Parolees are found using the store's indexes, rather than by looking at every Parolee. With no
+     * criteria at all, every Parolee is streamed out straight from the store, without first being copied into a list.
+     *
+     * @param lastName   if given, only Parolees with exactly this last name are returned.
+     * @param gender     if given, only Parolees of this Gender are returned.
+     * @param bornAfter  if given, only Parolees born after this date (in ISO format, e.g. 1899-01-17) are returned.
+     * @param bornBefore if given, only Parolees born before this date are returned.
+     * @return a StreamingOutput object that writes out the state of every matching Parolee in JSON form.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public StreamingOutput getParolees(@QueryParam("lastName") String lastName,
+                                       @QueryParam("gender") String gender,
+                                       @QueryParam("bornAfter") String bornAfter,
+                                       @QueryParam("bornBefore") String bornBefore) {
+
+        if (lastName == null && gender == null && bornAfter == null && bornBefore == null) {
+            _logger.info("Retrieving all parolees");
+            return (outputStream) -> outputParolees(outputStream, _paroleeDB.values());
+        }
+
+        final List<Parolee> parolees;
+        try {
+            parolees = _paroleeDB.find(lastName,
+                    gender == null ? null : Gender.valueOf(gender),
+                    bornAfter == null ? null : LocalDate.parse(bornAfter),
+                    bornBefore == null ? null : LocalDate.parse(bornBefore));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+
+        _logger.info("Found " + parolees.size() + " matching parolees");
+        return (outputStream) -> outputParolees(outputStream, parolees);
+    }
+
     /**
      * Attempts to retrieve a particular Parolee based on their unique id. If the required Parolee is found, this method
      * returns a 200 response along with a JSON representation of the Parolee. In other cases, this method returns a
      * 404 response.
+     * <p>
+     * Every response includes an ETag header, derived from the Parolee's version number. If the request's
+     * If-None-Match header already has that ETag, the client's copy is up to date, so this method returns a 304 (Not
+     * Modified) response with no body instead.
      *
-     * @param id the unique id of the Parolee to be returned.
-     * @return a StreamingOutput object that writes out the Parolee state in JSON form.
+     * @param id      the unique id of the Parolee to be returned.
+     * @param request the request, used to evaluate its conditional headers.
+     * @return a Response whose entity is a StreamingOutput object that writes out the Parolee state in JSON form.
      */
     @GET
     @Path("{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    public StreamingOutput getParolee(@PathParam("id") long id) {
+    public Response getParolee(@PathParam("id") long id, @Context Request request) {
         _logger.info("Retrieving parolee with id: " + id);
         // Lookup the Parolee within the in-memory data structure.
-        final Parolee parolee = _paroleeDB.get(id);
-        if (parolee == null) {
+        // The Parolee and its version number are read together, so that the ETag is always that of the body sent.
+        final ParoleeStore.Versioned versioned = _paroleeDB.getVersioned(id);
+        if (versioned == null) {
             // Return a HTTP 404 response if the specified Parolee isn't found.
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
+        final Parolee parolee = versioned.getParolee();
+
+        // If the client already has this version of the Parolee, don't send it again.
+        EntityTag tag = entityTag(versioned.getVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
 
         // Return a StreamingOuput instance that the JAX-RS implementation will use to set the body of the
         // HTTP response message.
-        return (outputStream) -> outputParolee(outputStream, parolee);
+        StreamingOutput output = (outputStream) -> outputParolee(outputStream, parolee);
+        return Response.ok(output).tag(tag).build();
     }
 
     /**
@@ -95,36 +168,114 @@ public class ParoleeResource {
 
         // Generate an ID for the new Parolee, and store it in memory.
         parolee.setId(_idCounter.incrementAndGet());
-        _paroleeDB.put(parolee.getId(), parolee);
+        long version = _paroleeDB.add(parolee);
 
         _logger.debug("Created parolee with id: " + parolee.getId());
 
         return Response.created(URI.create("/parolees/" + parolee.getId()))
+                .tag(entityTag(version))
                 .build();
     }
 
+    /**
+     * Creates many new Parolees at once, from newline-delimited JSON.
+     * <p>
+     * The request body is parsed incrementally, one Parolee at a time, and Parolees are stored in batches of {@link
+     * #IMPORT_BATCH_SIZE}. Each batch is given a block of consecutive ids with a single update to the id counter. So
+     * however many Parolees are sent, only one batch of them is held in memory at a time, apart from the store itself.
+     * <p>
+     * If a line can't be parsed, a 400 response is returned, but any batches stored before then are kept.
+     *
+     * @param is the InputStream that contains the newline-delimited JSON representations of the Parolees.
+     * @return a 200 response, whose JSON body gives the number of Parolees created.
+     */
+    @POST
+    @Path("bulk")
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importParolees(InputStream is) {
+        List<Parolee> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        long created = 0;
+
+        try (JsonParser parser = ParoleeJsonReader.createParser(is)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                batch.add(ParoleeJsonReader.readParolee(parser));
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    created += storeBatch(batch);
+                }
+            }
+            if (token != null) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+        } catch (Exception e) {
+            _logger.info("Bulk import failed after creating " + created + " parolees", e);
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+        created += storeBatch(batch);
+
+        _logger.debug("Bulk imported " + created + " parolees");
+
+        return Response.ok("{ \"created\": " + created + " }").build();
+    }
+
+    /**
+     * Retrieves all Parolees, as newline-delimited JSON. Like {@link #getParolees}, the Parolees are streamed out
+     * straight from the in-memory data structure.
+     *
+     * @return a StreamingOutput object that writes out the state of every Parolee, one per line.
+     */
+    @GET
+    @Path("export")
+    @Produces(APPLICATION_NDJSON)
+    public StreamingOutput exportParolees() {
+        _logger.info("Exporting all parolees");
+        return (outputStream) -> ParoleeJsonWriter.writeParoleesNdjson(outputStream, _paroleeDB.values());
+    }
+
     /**
      * Attempts to update an existing Parolee. If the specified Parolee is found it is updated, resulting in a
-     * HTTP 204 response being returned to the consumer. In other cases, a 404 response is returned.
+     * HTTP 204 response being returned to the consumer, with the Parolee's new ETag. In other cases, a 404 response
+     * is returned.
+     * <p>
+     * If the request has an If-Match header, the Parolee is only updated if that matches its current ETag. Otherwise,
+     * someone else has changed the Parolee since the client last retrieved it, and a 412 (Precondition Failed)
+     * response is returned instead, so that their changes aren't lost.
      *
-     * @param id the unique id of the Parolee to update.
-     * @param is the InputStream used to store a JSON representation of the new state for the Parolee.
+     * @param id      the unique id of the Parolee to update.
+     * @param is      the InputStream used to store a JSON representation of the new state for the Parolee.
+     * @param request the request, used to evaluate its conditional headers.
+     * @param headers the request's headers.
      */
     @PUT
     @Path("{id}")
     @Consumes(MediaType.APPLICATION_JSON)
-    public void updateParolee(@PathParam("id") long id, InputStream is) {
+    public Response updateParolee(@PathParam("id") long id, InputStream is,
+                                  @Context Request request, @Context HttpHeaders headers) {
         Parolee update = readParolee(is);
-        Parolee current = _paroleeDB.get(id);
-        if (current == null) {
+
+        long version = _paroleeDB.version(id);
+        if (version == 0) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
 
-        // Update the details of the Parolee to be updated.
-        current.setFirstName(update.getFirstName());
-        current.setLastName(update.getLastName());
-        current.setGender(update.getGender());
-        current.setDateOfBirth(update.getDateOfBirth());
+        Response.ResponseBuilder preconditionFailed = request.evaluatePreconditions(entityTag(version));
+        if (preconditionFailed != null) {
+            return preconditionFailed.build();
+        }
+
+        // Update the details of the Parolee to be updated, and re-index it. If the client gave an ETag, the update
+        // must still be based on that version; it may have changed since we checked.
+        long expectedVersion = headers.getHeaderString(HttpHeaders.IF_MATCH) == null ? 0 : version;
+        long newVersion = _paroleeDB.update(id, update, expectedVersion);
+        if (newVersion == 0) {
+            if (_paroleeDB.get(id) == null) {
+                throw new WebApplicationException(Response.Status.NOT_FOUND);
+            }
+            return Response.status(Response.Status.PRECONDITION_FAILED).build();
+        }
+
+        return Response.noContent().tag(entityTag(newVersion)).build();
     }
 
     /**
@@ -136,13 +287,10 @@ public class ParoleeResource {
     @DELETE
     @Path("{id}")
     public void deleteParolee(@PathParam("id") long id) {
-        Parolee current = _paroleeDB.get(id);
-        if (current == null) {
+        // Remove the Parolee.
+        if (_paroleeDB.remove(id) == null) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
-
-        // Remove the Parolee.
-        _paroleeDB.remove(id);
         _logger.info("Deleted parolee with ID: " + id);
     }
 
@@ -156,39 +304,55 @@ public class ParoleeResource {
     }
 
 
+    /**
+     * Helper method to create the ETag for a particular version of a Parolee. Version numbers are unique across all
+     * Parolees, so the version number alone is enough.
+     */
+    private static EntityTag entityTag(long version) {
+        return new EntityTag(Long.toString(version));
+    }
+
+    /**
+     * Helper method to give a batch of new Parolees a block of consecutive ids, and store them all. The batch is
+     * then cleared, so that it can be reused.
+     *
+     * @param batch the Parolees to store.
+     * @return the number of Parolees stored.
+     */
+    private int storeBatch(List<Parolee> batch) {
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        long id = _idCounter.getAndAdd(size);
+        for (Parolee parolee : batch) {
+            parolee.setId(++id);
+        }
+        _paroleeDB.addAll(batch);
+
+        batch.clear();
+        return size;
+    }
+
     /**
      * Helper method to generate a JSON representation of a particular Parolee.
      *
      * @param os      the OutputStream used to write out the JSON.
      * @param parolee the Parolee for which to generate a JSON representation.
      */
-    protected void outputParolee(OutputStream os, Parolee parolee) {
-
-        String dateOfBirth = parolee.getDateOfBirth().format(DATE_FORMATTER);
-
-        PrintStream writer = new PrintStream(os);
-        writer.println("{");
-        writer.println("  \"id\": " + parolee.getId() + ",");
-        writer.println("  \"firstName\": \"" + parolee.getFirstName() + "\",");
-        writer.println("  \"lastName\": \"" + parolee.getLastName() + "\",");
-        writer.println("  \"gender\": \"" + parolee.getGender() + "\",");
-        writer.println("  \"dateOfBirth\": \"" + dateOfBirth + "\"");
-        writer.println("}");
+    protected void outputParolee(OutputStream os, Parolee parolee) throws IOException {
+        ParoleeJsonWriter.writeParolee(os, parolee);
     }
 
     /**
      * Helper method to generate a JSON representation for a collection of Parolees.
+     *
+     * @param os       the OutputStream used to write out the JSON.
+     * @param parolees the Parolees for which to generate a JSON representation.
      */
-    protected void outputParolees(OutputStream os, List<Parolee> parolees) {
-        PrintStream writer = new PrintStream(os);
-        writer.println("[");
-        for (int i = 0; i < parolees.size(); i++) {
-            outputParolee(os, parolees.get(i));
-            if (i < parolees.size() - 1) {
-                writer.println(",");
-            }
-        }
-        writer.println("]");
+    protected void outputParolees(OutputStream os, Iterable<Parolee> parolees) throws IOException {
+        ParoleeJsonWriter.writeParolees(os, parolees);
     }
 
     /**
@@ -201,18 +365,7 @@ public class ParoleeResource {
 
         try {
 
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode node = mapper.readTree(is);
-
-            Parolee parolee = new Parolee();
-            JsonNode idNode = node.get("id");
-            parolee.setId(idNode == null ? 0 : idNode.asLong());
-            parolee.setFirstName(node.get("firstName").asText());
-            parolee.setLastName(node.get("lastName").asText());
-            parolee.setGender(Gender.valueOf(node.get("gender").asText()));
-            parolee.setDateOfBirth(LocalDate.parse(node.get("dateOfBirth").asText(), DATE_FORMATTER));
-
-            return parolee;
+            return ParoleeJsonReader.readParolee(is);
 
         } catch (Exception e) {
             throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
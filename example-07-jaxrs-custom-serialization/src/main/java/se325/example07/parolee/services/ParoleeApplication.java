@@ -22,7 +22,8 @@ public class ParoleeApplication extends Application {
 
     public ParoleeApplication() {
         singletons.add(new ParoleeResource());
-        classes.add(SerializationMessageBodyReaderAndWriter.class);
+        singletons.add(new SerializationMessageBodyReaderAndWriter(true));
+        singletons.add(new ParoleeBinaryReaderAndWriter(true));
     }
 
     @Override
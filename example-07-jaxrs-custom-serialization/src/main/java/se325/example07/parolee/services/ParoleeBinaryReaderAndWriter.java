@@ -0,0 +1,238 @@
+package se325.example07.parolee.services;
+
+import se325.example07.parolee.domain.Gender;
+import se325.example07.parolee.domain.Parolee;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and writes Parolees, and collections of Parolees, in a compact binary format.
+ * <p>
+ * Java serialization describes the class of every object it writes, field names and all, so a single Parolee takes
+ * hundreds of bytes. This format only writes the values, in a fixed order, so the same Parolee takes a few dozen:
+ * <ul>
+ * <li>id: an 8-byte long, or 0 if the Parolee doesn't have one yet.</li>
+ * <li>firstName, lastName: each a 2-byte unsigned length, followed by that many bytes of UTF-8. A length of
+ * {@value #NULL_LENGTH} means null.</li>
+ * <li>gender: a 1-byte {@link Gender} ordinal, or -1 for null.</li>
+ * <li>dateOfBirth: a 4-byte number of days since 1970-01-01, or {@link Integer#MIN_VALUE} for null.</li>
+ * </ul>
+ * A collection is written as a stream of Parolees, each preceded by a 1 byte, and followed by a 0 byte. That way the
+ * writer doesn't need to know how many Parolees there are before it starts, and the reader can tell where they end.
+ */
+@Produces(ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY)
+@Consumes(ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY)
+public class ParoleeBinaryReaderAndWriter implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    public static final String APPLICATION_PAROLEE_BINARY = "application/x-parolee-binary";
+    public static final MediaType APPLICATION_PAROLEE_BINARY_TYPE = MediaType.valueOf(APPLICATION_PAROLEE_BINARY);
+
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+
+    private static final int RECORD_SIZE = 8 + 2 + 2 + 1 + 4;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final boolean writesResponses;
+
+    /**
+     * Creates a reader and writer for a client, which leaves the Content-Length header of a request to its HTTP
+     * connector.
+     */
+    public ParoleeBinaryReaderAndWriter() {
+        this(false);
+    }
+
+    /**
+     * @param writesResponses whether this is for a server, in which case it sets the Content-Length header of
+     *                        the responses it writes.
+     */
+    public ParoleeBinaryReaderAndWriter(boolean writesResponses) {
+        this.writesResponses = writesResponses;
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType,
+                              Annotation[] annotations, MediaType mediaType) {
+        return mediaType.isCompatible(APPLICATION_PAROLEE_BINARY_TYPE)
+                && (type == Parolee.class
+                || (type.isAssignableFrom(ArrayList.class) && isParoleeCollection(genericType)));
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType,
+                           Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(entityStream, BUFFER_SIZE));
+        if (Parolee.class.equals(type)) {
+            return readParolee(in);
+        }
+
+        List<Parolee> parolees = new ArrayList<>();
+        while (in.readBoolean()) {
+            parolees.add(readParolee(in));
+        }
+        return parolees;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType,
+                               Annotation[] annotations, MediaType mediaType) {
+        return mediaType.isCompatible(APPLICATION_PAROLEE_BINARY_TYPE)
+                && (Parolee.class.isAssignableFrom(type)
+                || (Collection.class.isAssignableFrom(type) && isParoleeCollection(genericType)));
+    }
+
+    /**
+     * A single Parolee's size is easy to work out without encoding it, so it's reported, and the response is sent
+     * with a Content-Length header. A collection is streamed, so its size isn't known up front.
+     * <p>
+     * JAX-RS 2.0 deprecated this method, and run-times don't have to use its result, so {@link #writeTo} sets the
+     * Content-Length header of a response itself.
+     */
+    @Override
+    public long getSize(Object o, Class<?> type, Type genericType,
+                        Annotation[] annotations, MediaType mediaType) {
+        return o instanceof Parolee ? size((Parolee) o) : -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void writeTo(Object o, Class<?> type, Type genericType,
+                        Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(entityStream, BUFFER_SIZE));
+        if (o instanceof Parolee) {
+            Parolee parolee = (Parolee) o;
+            if (writesResponses) {
+                httpHeaders.putSingle(HttpHeaders.CONTENT_LENGTH, size(parolee));
+            }
+            writeParolee(out, parolee);
+        } else {
+            for (Parolee parolee : (Collection<Parolee>) o) {
+                out.writeBoolean(true);
+                writeParolee(out, parolee);
+            }
+            out.writeBoolean(false);
+        }
+        out.flush();
+    }
+
+    /**
+     * Works out how many bytes {@link #writeParolee} writes for a Parolee.
+     */
+    private static int size(Parolee parolee) {
+        return RECORD_SIZE + utf8Length(parolee.getFirstName()) + utf8Length(parolee.getLastName());
+    }
+
+    private static void writeParolee(DataOutputStream out, Parolee parolee) throws IOException {
+        Long id = parolee.getId();
+        out.writeLong(id == null ? 0 : id);
+        writeString(out, parolee.getFirstName());
+        writeString(out, parolee.getLastName());
+        Gender gender = parolee.getGender();
+        out.writeByte(gender == null ? -1 : gender.ordinal());
+        LocalDate dateOfBirth = parolee.getDateOfBirth();
+        out.writeInt(dateOfBirth == null ? NULL_DATE : Math.toIntExact(dateOfBirth.toEpochDay()));
+    }
+
+    private static Parolee readParolee(DataInputStream in) throws IOException {
+        Parolee parolee = new Parolee();
+        long id = in.readLong();
+        parolee.setId(id == 0 ? null : id);
+        parolee.setFirstName(readString(in));
+        parolee.setLastName(readString(in));
+        byte gender = in.readByte();
+        if (gender < -1 || gender >= GENDERS.length) {
+            throw new IOException("Unknown gender: " + gender);
+        }
+        parolee.setGender(gender == -1 ? null : GENDERS[gender]);
+        int dateOfBirth = in.readInt();
+        parolee.setDateOfBirth(dateOfBirth == NULL_DATE ? null : LocalDate.ofEpochDay(dateOfBirth));
+        return parolee;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeShort(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IOException("String too long: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readUnsignedShort();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Works out how many bytes of UTF-8 a String encodes to, without encoding it.
+     */
+    private static int utf8Length(String s) {
+        if (s == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(c)) {
+                // A surrogate pair is one 4-byte character; a lone surrogate is encoded as a 1-byte '?'.
+                if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else {
+                    length += 1;
+                }
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isParoleeCollection(Type genericType) {
+        if (!(genericType instanceof ParameterizedType)) {
+            return false;
+        }
+        Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+        return arguments.length == 1 && arguments[0] == Parolee.class;
+    }
+}
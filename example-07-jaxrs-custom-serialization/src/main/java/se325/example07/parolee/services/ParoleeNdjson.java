@@ -0,0 +1,183 @@
+package se325.example07.parolee.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import se325.example07.parolee.domain.Gender;
+import se325.example07.parolee.domain.Parolee;
+
+/**
+ * Reads and writes Parolees as newline-delimited JSON (NDJSON), where each
+ * line holds one Parolee's JSON representation.
+ * <p>
+ * This uses Jackson's streaming parser and generator directly, so Parolees
+ * are read and written one at a time, and never all held in memory at once.
+ * A single {@link JsonFactory} is shared by all threads, as it's thread-safe
+ * and is where Jackson keeps its reusable buffers.
+ */
+public class ParoleeNdjson {
+
+    /**
+     * Media type for newline-delimited JSON.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializedString LAST_NAME = new SerializedString("lastName");
+    private static final SerializedString GENDER = new SerializedString("gender");
+    private static final SerializedString DATE_OF_BIRTH = new SerializedString("dateOfBirth");
+
+    /**
+     * Reads Parolees one at a time from a stream of newline-delimited JSON.
+     */
+    public static class Reader implements AutoCloseable {
+
+        private final JsonParser parser;
+
+        public Reader(InputStream is) throws IOException {
+            parser = JSON_FACTORY.createParser(is);
+        }
+
+        /**
+         * Reads the next Parolee, or returns null if there are no more. The
+         * id is optional; all other fields are required, and must be
+         * strings. Any fields which Parolees don't have are skipped.
+         *
+         * @throws IOException if the next line isn't a valid JSON
+         *                     representation of a Parolee.
+         */
+        public Parolee next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+
+            Parolee parolee = new Parolee();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "id":
+                        if (value != JsonToken.VALUE_NULL) {
+                            expect(JsonToken.VALUE_NUMBER_INT, field);
+                            parolee.setId(parser.getLongValue());
+                        }
+                        break;
+                    case "firstName":
+                        expect(JsonToken.VALUE_STRING, field);
+                        parolee.setFirstName(parser.getText());
+                        break;
+                    case "lastName":
+                        expect(JsonToken.VALUE_STRING, field);
+                        parolee.setLastName(parser.getText());
+                        break;
+                    case "gender":
+                        expect(JsonToken.VALUE_STRING, field);
+                        parolee.setGender(readGender());
+                        break;
+                    case "dateOfBirth":
+                        expect(JsonToken.VALUE_STRING, field);
+                        parolee.setDateOfBirth(LocalDate.parse(parser.getText()));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+
+            if (parolee.getFirstName() == null || parolee.getLastName() == null
+                    || parolee.getGender() == null || parolee.getDateOfBirth() == null) {
+                throw new JsonParseException(parser, "Parolee is missing a required field");
+            }
+
+            return parolee;
+        }
+
+        /**
+         * Checks the type of a known field's value, so that an object or
+         * array value isn't read as if its own fields were the Parolee's.
+         */
+        private void expect(JsonToken expected, String field) throws JsonParseException {
+            if (parser.currentToken() != expected) {
+                throw new JsonParseException(parser, "Unexpected value for " + field + ": " + parser.currentToken());
+            }
+        }
+
+        private Gender readGender() throws IOException {
+            String text = parser.getText();
+            for (Gender gender : Gender.values()) {
+                if (gender.name().equals(text)) {
+                    return gender;
+                }
+            }
+            throw new JsonParseException(parser, "Unknown gender: " + text);
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    /**
+     * Writes Parolees one at a time as newline-delimited JSON.
+     */
+    public static class Writer implements AutoCloseable {
+
+        private final JsonGenerator generator;
+
+        public Writer(OutputStream os) throws IOException {
+            generator = JSON_FACTORY.createGenerator(os, JsonEncoding.UTF8);
+
+            // Each Parolee ends with a newline, so we don't want a space before the next one, too.
+            generator.setRootValueSeparator(null);
+        }
+
+        public void write(Parolee parolee) throws IOException {
+            generator.writeStartObject();
+
+            generator.writeFieldName(ID);
+            generator.writeNumber(parolee.getId());
+            generator.writeFieldName(FIRST_NAME);
+            generator.writeString(parolee.getFirstName());
+            generator.writeFieldName(LAST_NAME);
+            generator.writeString(parolee.getLastName());
+            generator.writeFieldName(GENDER);
+            generator.writeString(parolee.getGender() == null ? null : parolee.getGender().name());
+            generator.writeFieldName(DATE_OF_BIRTH);
+            generator.writeString(parolee.getDateOfBirth() == null ? null : parolee.getDateOfBirth().toString());
+
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        /**
+         * Flushes everything written, without closing the underlying stream.
+         */
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private ParoleeNdjson() {
+    }
+}
@@ -1,8 +1,12 @@
 package se325.example07.parolee.services;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.Consumes;
@@ -13,9 +17,17 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import se325.example07.parolee.domain.Gender;
 import se325.example07.parolee.domain.Parolee;
 
 import org.slf4j.Logger;
@@ -26,6 +38,11 @@ import org.slf4j.LoggerFactory;
  * <p>
  * ParoleeResource implements a WEB service with the following interface:
  * <p>
+ * - GET    <base-uri>/parolees?lastName=...&gender=...&bornAfter=...&bornBefore=...
+ * Retrieves all parolees which match the given (optional) criteria, or all
+ * parolees if there are no criteria. The format of the returned data is a
+ * Java-serialized list, or a stream of compact binary parolee records.
+ * <p>
  * - GET    <base-uri>/parolees/{id}
  * Retrieves a parolee based on their unique id. The format of the
  * returned data is JSON.
@@ -34,6 +51,13 @@ import org.slf4j.LoggerFactory;
  * Creates a new Parolee. The HTTP post message contains an JSON
  * representation of the parolee to be created.
  * <p>
+ * - POST   <base-uri>/parolees/bulk
+ * Creates many new Parolees at once. The HTTP post message contains
+ * newline-delimited JSON (one JSON representation of a parolee per line).
+ * <p>
+ * - GET    <base-uri>/parolees/export
+ * Retrieves all parolees, as newline-delimited JSON.
+ * <p>
  * - PUT    <base-uri>/parolees/{id}
  * Updates a parolee, identified by their id.The HTTP PUT message
  * contains an JSON document describing the new state of the parolee.
@@ -43,13 +67,25 @@ import org.slf4j.LoggerFactory;
  * <p>
  * - DELETE <base-uri>/parolees
  * Deletes all parolees.
+ * <p>
+ * Wherever a parolee (or list of parolees) is sent using Java serialization,
+ * it can instead be sent in the much smaller format of
+ * {@link ParoleeBinaryReaderAndWriter}, by using its media type in the
+ * Content-Type or Accept header. Java serialization remains the default, so
+ * that clients which don't know about the binary format keep working.
  */
 @Path("/parolees")
 public class ParoleeResource {
 
+    /**
+     * The number of Parolees a bulk import parses before storing them all at
+     * once.
+     */
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(ParoleeResource.class);
 
-    private Map<Long, Parolee> paroleeDB = new ConcurrentHashMap<>();
+    private ParoleeStore paroleeDB = new ParoleeStore();
     private AtomicLong idCounter = new AtomicLong();
 
     /**
@@ -62,69 +98,208 @@ public class ParoleeResource {
      * object when preparing the HTTP response message.
      */
     @POST
-    @Consumes(SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT)
+    @Consumes({SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT,
+            ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY})
     public Response createParolee(Parolee parolee) {
 
         // Generate an ID for the new Parolee, and store it in memory.
         parolee.setId(idCounter.incrementAndGet());
-        paroleeDB.put(parolee.getId(), parolee);
+        long version = paroleeDB.add(parolee);
 
         LOGGER.debug("Created parolee with id: " + parolee.getId());
 
         return Response
                 .created(URI.create("/parolees/" + parolee.getId()))
+                .tag(entityTag(version))
                 .build();
     }
 
+    /**
+     * Creates many new Parolees at once, from newline-delimited JSON.
+     * <p>
+     * The request body is parsed incrementally, one Parolee at a time, and
+     * Parolees are stored in batches of {@link #IMPORT_BATCH_SIZE}. Each batch
+     * is given a block of consecutive ids with a single update to the id
+     * counter. So however many Parolees are sent, only one batch of them is
+     * held in memory at a time, apart from the store itself.
+     * <p>
+     * If a line can't be parsed, a 400 response is returned, but any batches
+     * stored before then are kept.
+     *
+     * @param is the newline-delimited JSON representations of the Parolees.
+     * @return a 200 response, whose JSON body gives the number of Parolees
+     * created.
+     */
+    @POST
+    @Path("bulk")
+    @Consumes(ParoleeNdjson.APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importParolees(InputStream is) {
+        List<Parolee> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        long created = 0;
+
+        try (ParoleeNdjson.Reader reader = new ParoleeNdjson.Reader(is)) {
+            Parolee parolee;
+            while ((parolee = reader.next()) != null) {
+                batch.add(parolee);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    created += storeBatch(batch);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.info("Bulk import failed after creating " + created + " parolees", e);
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+        created += storeBatch(batch);
+
+        LOGGER.debug("Bulk imported " + created + " parolees");
+
+        return Response.ok("{ \"created\": " + created + " }").build();
+    }
+
+    /**
+     * Retrieves all Parolees, as newline-delimited JSON. The Parolees are
+     * streamed out straight from the in-memory data structure, without first
+     * being copied into a list.
+     *
+     * @return a StreamingOutput object that writes out the state of every
+     * Parolee, one per line.
+     */
+    @GET
+    @Path("export")
+    @Produces(ParoleeNdjson.APPLICATION_NDJSON)
+    public StreamingOutput exportParolees() {
+        LOGGER.info("Exporting all parolees");
+        return (outputStream) -> {
+            try (ParoleeNdjson.Writer writer = new ParoleeNdjson.Writer(outputStream)) {
+                for (Parolee parolee : paroleeDB.values()) {
+                    writer.write(parolee);
+                }
+            }
+        };
+    }
+
+    /**
+     * Retrieves the Parolees which match all of the given criteria. Matching
+     * Parolees are found by intersecting the store's indexes, rather than by
+     * looking at every Parolee. Returns a 400 response if a criterion is
+     * invalid.
+     * <p>
+     * The return type is ArrayList rather than List, because the message body
+     * writer only handles types which are declared to be Serializable.
+     *
+     * @param lastName   if given, only Parolees with exactly this last name
+     *                   are returned.
+     * @param gender     if given, only Parolees of this Gender are returned.
+     * @param bornAfter  if given, only Parolees born after this date (in ISO
+     *                   format, e.g. 1899-01-17) are returned.
+     * @param bornBefore if given, only Parolees born before this date are
+     *                   returned.
+     * @return the matching Parolees, in id order if any criteria were given.
+     */
+    @GET
+    @Produces({SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT,
+            ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY})
+    public ArrayList<Parolee> retrieveParolees(@QueryParam("lastName") String lastName,
+                                               @QueryParam("gender") String gender,
+                                               @QueryParam("bornAfter") String bornAfter,
+                                               @QueryParam("bornBefore") String bornBefore) {
+        try {
+            return new ArrayList<>(paroleeDB.find(lastName,
+                    gender == null ? null : Gender.valueOf(gender),
+                    bornAfter == null ? null : LocalDate.parse(bornAfter),
+                    bornBefore == null ? null : LocalDate.parse(bornBefore)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+    }
+
     /**
      * Attempts to retrieve a particular Parolee based on their unique id. If
      * the required Parolee is found, this method returns a 200 response along
-     * with an JSON representation of the Parolee. In other cases, this method
+     * with a serialized representation of the Parolee. In other cases, this method
      * returns a 404 response.
+     * <p>
+     * Every response includes an ETag header, derived from the Parolee's
+     * version number. If the request's If-None-Match header already has that
+     * ETag, the client's copy is up to date, so this method returns a 304
+     * (Not Modified) response with no body instead.
      *
-     * @param id the unique id of the Parolee to be returned.
-     * @return a StreamingOutput object that writes out the Parolee state in
-     * JSON form.
+     * @param id      the unique id of the Parolee to be returned.
+     * @param request the request, used to evaluate its conditional headers.
+     * @return a Response containing the Parolee, or a 304 response.
      */
     @GET
     @Path("{id}")
-    @Produces(SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT)
-    public Parolee retrieveParolee(@PathParam("id") long id) {
+    @Produces({SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT,
+            ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY})
+    public Response retrieveParolee(@PathParam("id") long id, @Context Request request) {
         LOGGER.info("Retrieving parolee with id: " + id);
         // Lookup the Parolee within the in-memory data structure.
-        final Parolee parolee = paroleeDB.get(id);
-        if (parolee == null) {
+        // The Parolee and its version number are read together, so that the
+        // ETag is always that of the body sent.
+        final ParoleeStore.Versioned versioned = paroleeDB.getVersioned(id);
+        if (versioned == null) {
             // Return a HTTP 404 response if the specified Parolee isn't found.
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
+        final Parolee parolee = versioned.getParolee();
 
-        return parolee;
+        // If the client already has this version of the Parolee, don't send it again.
+        EntityTag tag = entityTag(versioned.getVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        return Response.ok(parolee).tag(tag).build();
     }
 
     /**
      * Attempts to update an existing Parolee. If the specified Parolee is
      * found it is updated, resulting in a HTTP 204 response being returned to
-     * the consumer. In other cases, a 404 response is returned.
+     * the consumer, with the Parolee's new ETag. In other cases, a 404
+     * response is returned.
+     * <p>
+     * If the request has an If-Match header, the Parolee is only updated if
+     * that matches its current ETag. Otherwise, someone else has changed the
+     * Parolee since the client last retrieved it, and a 412 (Precondition
+     * Failed) response is returned instead, so that their changes aren't lost.
      *
-     * @param id     the unique id of the Parolee to update.
-     * @param update the Parolee to update
+     * @param id      the unique id of the Parolee to update.
+     * @param update  the Parolee to update
+     * @param request the request, used to evaluate its conditional headers.
+     * @param headers the request's headers.
      */
     @PUT
     @Path("{id}")
-    @Consumes(SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT)
-    public void updateParolee(@PathParam("id") long id, Parolee update) {
-        Parolee current = paroleeDB.get(id);
-        if (current == null) {
+    @Consumes({SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT,
+            ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY})
+    public Response updateParolee(@PathParam("id") long id, Parolee update,
+                                  @Context Request request, @Context HttpHeaders headers) {
+        long version = paroleeDB.version(id);
+        if (version == 0) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
 
-        // Update the details of the Parolee to be updated.
-        current.setFirstName(update.getFirstName());
-        current.setLastName(update.getLastName());
-        current.setGender(update.getGender());
-        current.setDateOfBirth(update.getDateOfBirth());
+        Response.ResponseBuilder preconditionFailed = request.evaluatePreconditions(entityTag(version));
+        if (preconditionFailed != null) {
+            return preconditionFailed.build();
+        }
 
-        // Methods with no return type (i.e. void) will return HTTP 204 to the client.
+        // Update the details of the Parolee to be updated, and re-index it.
+        // If the client gave an ETag, the update must still be based on that
+        // version; it may have changed since we checked.
+        long expectedVersion = headers.getHeaderString(HttpHeaders.IF_MATCH) == null ? 0 : version;
+        long newVersion = paroleeDB.update(id, update, expectedVersion);
+        if (newVersion == 0) {
+            if (paroleeDB.get(id) == null) {
+                throw new WebApplicationException(Response.Status.NOT_FOUND);
+            }
+            return Response.status(Response.Status.PRECONDITION_FAILED).build();
+        }
+
+        return Response.noContent().tag(entityTag(newVersion)).build();
     }
 
     /**
@@ -137,13 +312,10 @@ public class ParoleeResource {
     @DELETE
     @Path("{id}")
     public void deleteParolee(@PathParam("id") long id) {
-        Parolee current = paroleeDB.get(id);
-        if (current == null) {
+        // Remove the Parolee.
+        if (paroleeDB.remove(id) == null) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
-
-        // Remove the Parolee.
-        paroleeDB.remove(id);
         LOGGER.info("Deleted parolee with ID: " + id);
 
         // Methods with no return type (i.e. void) will return HTTP 204 to the client.
@@ -158,4 +330,35 @@ public class ParoleeResource {
         idCounter = new AtomicLong();
     }
 
+    /**
+     * Creates the ETag for a particular version of a Parolee. Version numbers
+     * are unique across all Parolees, so the version number alone is enough.
+     */
+    private static EntityTag entityTag(long version) {
+        return new EntityTag(Long.toString(version));
+    }
+
+    /**
+     * Gives a batch of new Parolees a block of consecutive ids, and stores
+     * them all. The batch is then cleared, so that it can be reused.
+     *
+     * @param batch the Parolees to store.
+     * @return the number of Parolees stored.
+     */
+    private int storeBatch(List<Parolee> batch) {
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        long id = idCounter.getAndAdd(size);
+        for (Parolee parolee : batch) {
+            parolee.setId(++id);
+        }
+        paroleeDB.addAll(batch);
+
+        batch.clear();
+        return size;
+    }
+
 }
@@ -0,0 +1,411 @@
+package se325.example07.parolee.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import se325.example07.parolee.domain.Gender;
+import se325.example07.parolee.domain.Parolee;
+
+/**
+ * In-memory store of Parolees, indexed by id, and also by last name, gender and date of birth so that they can be
+ * searched without looking at every Parolee.
+ * <p>
+ * The secondary indexes map each value to the set of ids of the Parolees which have it (so a Parolee's id must fit in
+ * an int):
+ * <ul>
+ * <li>Last names are kept in a hash map, for exact matches.</li>
+ * <li>Genders are kept in an {@link EnumMap}, with a {@link BitSet} per Gender. There are only a couple of Genders, so
+ * each one is shared by a large fraction of the Parolees, and a bitmap is the most compact way to hold their ids.</li>
+ * <li>Dates of birth are kept in a sorted map, so the ids for a range of dates can be found without looking at any
+ * dates outside it.</li>
+ * </ul>
+ * Most last names and dates of birth are shared by only a few Parolees, so their ids are kept in small sorted arrays
+ * instead. A bitmap per name or date would take space in proportion to the highest id, for each of them. A search
+ * starts from its most selective criterion (last name, then dates of birth, then gender), and checks each of those
+ * Parolees against the others.
+ * Each Parolee also has a version number, which changes every time the Parolee is added or updated. Version numbers
+ * come from a single sequence for the whole store, so a version number is never reused, even by a different Parolee
+ * with the same id after the store is cleared. That makes them suitable for ETags.
+ * <p>
+ * Stored Parolees are never modified: updating a Parolee replaces it with a new object. So a Parolee which has been
+ * retrieved from the store can be safely serialized while it's being updated, and {@link #getVersioned(long)} gives a
+ * Parolee together with the version number of exactly that state.
+ * <p>
+ * Lookups by id go straight to a {@link ConcurrentHashMap}, without locking. Everything else takes a read-write lock,
+ * so that searches always see the indexes in a consistent state, and a Parolee is never half-way through being moved
+ * between index entries.
+ */
+public class ParoleeStore {
+
+    private final Map<Long, Parolee> byId = new ConcurrentHashMap<>();
+    private final Map<Long, Versioned> versions = new ConcurrentHashMap<>();
+    private long lastVersion;
+
+    private final Map<String, IdSet> byLastName = new HashMap<>();
+    private final Map<Gender, BitSet> byGender = new EnumMap<>(Gender.class);
+    private final NavigableMap<LocalDate, IdSet> byDateOfBirth = new TreeMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * A stored Parolee, and its version number.
+     */
+    public static final class Versioned {
+        private final Parolee parolee;
+        private final long version;
+
+        private Versioned(Parolee parolee, long version) {
+            this.parolee = parolee;
+            this.version = version;
+        }
+
+        public Parolee getParolee() {
+            return parolee;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Gets the Parolee with the given id, or null if there isn't one.
+     */
+    public Parolee get(long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Gets the current version number of the Parolee with the given id, or 0 if there isn't one.
+     */
+    public long version(long id) {
+        Versioned versioned = versions.get(id);
+        return versioned == null ? 0 : versioned.getVersion();
+    }
+
+    /**
+     * Gets the Parolee with the given id along with its version number, or null if there isn't one. Unlike calling
+     * {@link #get(long)} and {@link #version(long)} separately, the version number is always that of the returned
+     * Parolee, even if it's being updated at the same time.
+     */
+    public Versioned getVersioned(long id) {
+        return versions.get(id);
+    }
+
+    /**
+     * Gets all of the Parolees. The returned collection is a live view, which can safely be iterated over while the
+     * store is being changed.
+     */
+    public Collection<Parolee> values() {
+        return byId.values();
+    }
+
+    /**
+     * Adds a Parolee, which must already have been given its id.
+     *
+     * @return the new Parolee's version number.
+     */
+    public long add(Parolee parolee) {
+        bit(parolee);
+        lock.writeLock().lock();
+        try {
+            byId.put(parolee.getId(), parolee);
+            index(parolee);
+            return nextVersion(parolee);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds several Parolees at once, taking the lock only once. They must already have been given their ids. If any of
+     * the ids can't be indexed, none of the Parolees are added.
+     */
+    public void addAll(Collection<Parolee> parolees) {
+        for (Parolee parolee : parolees) {
+            bit(parolee);
+        }
+        lock.writeLock().lock();
+        try {
+            for (Parolee parolee : parolees) {
+                byId.put(parolee.getId(), parolee);
+                index(parolee);
+                nextVersion(parolee);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the stored Parolee with the given id with a new one, which has the details (but not the id) of the given
+     * Parolee, and re-indexes it.
+     *
+     * @return the Parolee's new version number, or 0 if there's no Parolee with the given id.
+     */
+    public long update(long id, Parolee update) {
+        return update(id, update, 0);
+    }
+
+    /**
+     * Like {@link #update(long, Parolee)}, but only if the stored Parolee's version number is still the given one.
+     * This lets a client which read a Parolee update it, without losing changes someone else has made since.
+     *
+     * @param expectedVersion the version number the Parolee must have, or 0 to update it whatever its version.
+     * @return the Parolee's new version number, or 0 if there's no Parolee with the given id, or it doesn't have the
+     * expected version number.
+     */
+    public long update(long id, Parolee update, long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            Parolee current = byId.get(id);
+            if (current == null || (expectedVersion != 0 && version(id) != expectedVersion)) {
+                return 0;
+            }
+
+            Parolee replacement = new Parolee();
+            replacement.setId(current.getId());
+            replacement.setFirstName(update.getFirstName());
+            replacement.setLastName(update.getLastName());
+            replacement.setGender(update.getGender());
+            replacement.setDateOfBirth(update.getDateOfBirth());
+
+            unindex(current);
+            byId.put(id, replacement);
+            index(replacement);
+            return nextVersion(replacement);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the Parolee with the given id.
+     *
+     * @return the removed Parolee, or null if there wasn't one.
+     */
+    public Parolee remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Parolee removed = byId.remove(id);
+            if (removed != null) {
+                unindex(removed);
+                versions.remove(id);
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all Parolees.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            byId.clear();
+            versions.clear();
+            byLastName.clear();
+            byGender.clear();
+            byDateOfBirth.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the Parolees which match all of the given criteria. Any criterion which is null is ignored; if they're all
+     * null, every Parolee is returned, in no particular order.
+     *
+     * @param lastName   the exact last name to match.
+     * @param gender     the gender to match.
+     * @param bornAfter  only match Parolees born after (not on) this date.
+     * @param bornBefore only match Parolees born before (not on) this date.
+     * @return the matching Parolees, in id order (unless there are no criteria).
+     */
+    public List<Parolee> find(String lastName, Gender gender, LocalDate bornAfter, LocalDate bornBefore) {
+        if (lastName == null && gender == null && bornAfter == null && bornBefore == null) {
+            return new ArrayList<>(byId.values());
+        }
+
+        if (bornAfter != null && bornBefore != null && !bornAfter.isBefore(bornBefore)) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet genderIds = gender == null ? null : byGender.getOrDefault(gender, new BitSet());
+            NavigableMap<LocalDate, IdSet> born = null;
+            if (bornAfter != null || bornBefore != null) {
+                born = byDateOfBirth;
+                if (bornAfter != null) {
+                    born = born.tailMap(bornAfter, false);
+                }
+                if (bornBefore != null) {
+                    born = born.headMap(bornBefore, false);
+                }
+            }
+
+            List<Parolee> matches = new ArrayList<>();
+
+            if (lastName != null) {
+                // Few Parolees share a last name, so just check each of them against the other criteria.
+                IdSet ids = byLastName.get(lastName);
+                if (ids != null) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        Parolee parolee = byId.get((long) ids.get(i));
+                        LocalDate dateOfBirth = parolee.getDateOfBirth();
+                        if ((genderIds == null || genderIds.get(ids.get(i)))
+                                && (born == null || (dateOfBirth != null && born.containsKey(dateOfBirth)))) {
+                            matches.add(parolee);
+                        }
+                    }
+                }
+                return matches;
+            }
+
+            if (born != null) {
+                // Collect the ids from every date in the range into a bitmap, which puts them in order.
+                BitSet ids = new BitSet();
+                for (IdSet sameDay : born.values()) {
+                    for (int i = 0; i < sameDay.size(); i++) {
+                        ids.set(sameDay.get(i));
+                    }
+                }
+                if (genderIds != null) {
+                    ids.and(genderIds);
+                }
+                addAll(matches, ids);
+                return matches;
+            }
+
+            addAll(matches, genderIds);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the Parolees with the given ids to a list, in id order.
+     */
+    private void addAll(List<Parolee> matches, BitSet ids) {
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            matches.add(byId.get((long) id));
+        }
+    }
+
+    /**
+     * Gives a newly stored Parolee a new version number. Must be called with the write lock held.
+     */
+    private long nextVersion(Parolee parolee) {
+        long version = ++lastVersion;
+        versions.put(parolee.getId(), new Versioned(parolee, version));
+        return version;
+    }
+
+    private void index(Parolee parolee) {
+        int id = bit(parolee);
+        if (parolee.getLastName() != null) {
+            byLastName.computeIfAbsent(parolee.getLastName(), k -> new IdSet()).add(id);
+        }
+        if (parolee.getGender() != null) {
+            byGender.computeIfAbsent(parolee.getGender(), k -> new BitSet()).set(id);
+        }
+        if (parolee.getDateOfBirth() != null) {
+            byDateOfBirth.computeIfAbsent(parolee.getDateOfBirth(), k -> new IdSet()).add(id);
+        }
+    }
+
+    private void unindex(Parolee parolee) {
+        int id = bit(parolee);
+        unindex(byLastName, parolee.getLastName(), id);
+        unindex(byDateOfBirth, parolee.getDateOfBirth(), id);
+
+        Gender gender = parolee.getGender();
+        BitSet ids = gender == null ? null : byGender.get(gender);
+        if (ids != null) {
+            ids.clear(id);
+            if (ids.isEmpty()) {
+                byGender.remove(gender);
+            }
+        }
+    }
+
+    /**
+     * Removes an id from an index entry, and removes the entry altogether if that was its last id.
+     */
+    private static <K> void unindex(Map<K, IdSet> index, K key, int id) {
+        if (key == null) {
+            return;
+        }
+        IdSet ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.size() == 0) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static int bit(Parolee parolee) {
+        long id = parolee.getId();
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Parolee id out of range for indexing: " + id);
+        }
+        return (int) id;
+    }
+
+    /**
+     * A set of ids, kept as a sorted array. Adding or removing an id shifts the ids after it, which is cheap for the
+     * handful of ids most index entries have.
+     */
+    private static final class IdSet {
+        private int[] ids = new int[1];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int i) {
+            return ids[i];
+        }
+
+        void add(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            ids[i] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+        }
+    }
+}
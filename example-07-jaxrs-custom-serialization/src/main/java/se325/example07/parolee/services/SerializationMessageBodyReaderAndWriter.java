@@ -1,19 +1,34 @@
 package se325.example07.parolee.services;
 
+import org.apache.commons.lang3.SerializationException;
 import org.apache.commons.lang3.SerializationUtils;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 
+/**
+ * Reads and writes Java-serialized objects.
+ * <p>
+ * Objects are serialized into a buffer before being written, rather than straight to the entity stream. That way
+ * their exact length is known before the first byte is written, so the response is sent with a Content-Length header
+ * instead of being chunked, and the bytes go to the entity stream in a single write. Each thread keeps its own buffer, which grows to
+ * fit the biggest object it has serialized and is then reused, so in the steady state serializing an object doesn't
+ * allocate a new buffer at all. A buffer which has grown unusually big is dropped after use, rather than being held
+ * onto forever.
+ */
 @Produces(SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT)
 @Consumes(SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT)
 public class SerializationMessageBodyReaderAndWriter implements
@@ -23,6 +38,29 @@ public class SerializationMessageBodyReaderAndWriter implements
     public static final MediaType APPLICATION_JAVA_SERIALIZED_OBJECT_TYPE = MediaType
             .valueOf(APPLICATION_JAVA_SERIALIZED_OBJECT);
 
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<SerializationBuffer> BUFFERS = ThreadLocal.withInitial(SerializationBuffer::new);
+
+    private final boolean writesResponses;
+
+    /**
+     * Creates a reader and writer for a client. A request's Content-Length header is set by the client's HTTP
+     * connector, which rejects a request that already has one, so this doesn't set it.
+     */
+    public SerializationMessageBodyReaderAndWriter() {
+        this(false);
+    }
+
+    /**
+     * @param writesResponses whether this is for a server, in which case it sets the Content-Length header of
+     *                        the responses it writes.
+     */
+    public SerializationMessageBodyReaderAndWriter(boolean writesResponses) {
+        this.writesResponses = writesResponses;
+    }
+
     @Override
     public boolean isReadable(Class<?> type, Type genericType,
                               Annotation[] annotations, MediaType mediaType) {
@@ -44,17 +82,76 @@ public class SerializationMessageBodyReaderAndWriter implements
                 && Serializable.class.isAssignableFrom(type);
     }
 
+    /**
+     * Serializes the object into this thread's buffer, to find out its exact length. The JAX-RS run-time calls this
+     * just before {@link #writeTo}, on the same thread, which then writes out the buffer rather than serializing the
+     * object again. The object is always serialized afresh here, in case it has changed since it was last written.
+     * <p>
+     * JAX-RS 2.0 deprecated this method, and run-times don't have to use its result, so {@link #writeTo} sets the
+     * Content-Length header of a response itself.
+     */
     @Override
     public long getSize(Serializable o, Class<?> type, Type genericType,
                         Annotation[] annotations, MediaType mediaType) {
-        return -1;
+        SerializationBuffer buffer = BUFFERS.get();
+        buffer.serialize(o);
+        return buffer.size();
     }
 
     @Override
     public void writeTo(Serializable o, Class<?> type, Type genericType,
                         Annotation[] annotations, MediaType mediaType,
                         MultivaluedMap<String, Object> httpHeaders,
-                        OutputStream entityStream) {
-        SerializationUtils.serialize(o, entityStream);
+                        OutputStream entityStream) throws IOException {
+        SerializationBuffer buffer = BUFFERS.get();
+        try {
+            if (!buffer.holds(o)) {
+                buffer.serialize(o);
+            }
+            if (writesResponses) {
+                httpHeaders.putSingle(HttpHeaders.CONTENT_LENGTH, buffer.size());
+            }
+            buffer.writeTo(entityStream);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * A growable byte buffer, which remembers which object was last serialized into it.
+     */
+    private static class SerializationBuffer extends ByteArrayOutputStream {
+
+        private Object serialized;
+
+        SerializationBuffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        void serialize(Object o) {
+            reset();
+            serialized = null;
+            try (ObjectOutputStream out = new ObjectOutputStream(this)) {
+                out.writeObject(o);
+            } catch (IOException e) {
+                throw new SerializationException(e);
+            }
+            serialized = o;
+        }
+
+        boolean holds(Object o) {
+            return serialized == o;
+        }
+
+        /**
+         * Forgets the serialized object, and shrinks the buffer back down if it has grown too big to keep.
+         */
+        void release() {
+            reset();
+            serialized = null;
+            if (buf.length > MAX_POOLED_BUFFER_SIZE) {
+                buf = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
     }
 }
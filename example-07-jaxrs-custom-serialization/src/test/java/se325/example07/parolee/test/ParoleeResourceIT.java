@@ -1,6 +1,9 @@
 package se325.example07.parolee.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -9,6 +12,9 @@ import java.util.List;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 import org.junit.AfterClass;
@@ -19,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import se325.example07.parolee.domain.Gender;
 import se325.example07.parolee.domain.Parolee;
+import se325.example07.parolee.services.ParoleeBinaryReaderAndWriter;
 import se325.example07.parolee.services.SerializationMessageBodyReaderAndWriter;
 
 /**
@@ -52,6 +59,7 @@ public class ParoleeResourceIT {
         client = ClientBuilder
                 .newBuilder()
                 .register(SerializationMessageBodyReaderAndWriter.class)
+                .register(ParoleeBinaryReaderAndWriter.class)
                 .build();
     }
 
@@ -114,6 +122,9 @@ public class ParoleeResourceIT {
             int responseCode = response.getStatus();
             assertEquals(200, responseCode);
 
+            // The body is buffered before it's written, so it's sent with its exact length rather than chunked.
+            assertTrue(response.getLength() > 0);
+
             Parolee parolee = response.readEntity(Parolee.class);
             _logger.info("Retrieved Parolee: " + parolee);
 
@@ -121,6 +132,152 @@ public class ParoleeResourceIT {
 
     }
 
+    @Test
+    public void testBinaryFormat() {
+        // New parolee, sent in the compact binary format.
+        Parolee payload = new Parolee(null, "Jesse", "James", Gender.MALE, "1847-09-05");
+
+        String paroleeUri;
+        try (Response response = client.target(WEB_SERVICE_URI)
+                .request()
+                .post(Entity.entity(payload, ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY))) {
+            assertEquals(201, response.getStatus());
+            paroleeUri = response.getLocation().toString();
+        }
+
+        // Retrieve it in the binary format too, and check nothing was lost on the way.
+        try (Response response = client.target(paroleeUri)
+                .request()
+                .accept(ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY)
+                .get()) {
+            assertEquals(200, response.getStatus());
+            assertEquals(ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY_TYPE, response.getMediaType());
+
+            Parolee parolee = response.readEntity(Parolee.class);
+            assertEquals("Jesse", parolee.getFirstName());
+            assertEquals("James", parolee.getLastName());
+            assertEquals(Gender.MALE, parolee.getGender());
+            assertEquals(payload.getDateOfBirth(), parolee.getDateOfBirth());
+        }
+
+        // Retrieve all of the Parolees, as a stream of binary records.
+        try (Response response = client.target(WEB_SERVICE_URI)
+                .request()
+                .accept(ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY)
+                .get()) {
+            assertEquals(200, response.getStatus());
+
+            List<Parolee> parolees = response.readEntity(new GenericType<List<Parolee>>() {
+            });
+            assertEquals(PAROLEE_PAYLOADS.length + 1, parolees.size());
+        }
+    }
+
+    @Test
+    public void testQuery() {
+        // Make a HTTP GET request for male Parolees born in the 1900s.
+        try (Response response = client.target(WEB_SERVICE_URI)
+                .queryParam("gender", "MALE")
+                .queryParam("bornAfter", "1899-12-31")
+                .queryParam("bornBefore", "2000-01-01")
+                .request()
+                .accept(ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY)
+                .get()) {
+
+            // Check that the HTTP response code is 200 OK, and that only Gotti, Escobar and Marcello match.
+            int status = response.getStatus();
+            assertEquals(200, status);
+
+            List<Parolee> parolees = response.readEntity(new GenericType<List<Parolee>>() {
+            });
+            assertEquals(3, parolees.size());
+        }
+
+        // Make a HTTP GET request for Parolees with a particular last name.
+        try (Response response = client.target(WEB_SERVICE_URI)
+                .queryParam("lastName", "Capone")
+                .request()
+                .accept(ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY)
+                .get()) {
+
+            List<Parolee> parolees = response.readEntity(new GenericType<List<Parolee>>() {
+            });
+            assertEquals(1, parolees.size());
+            assertEquals("Al", parolees.get(0).getFirstName());
+        }
+    }
+
+    @Test
+    public void testBulkImportAndExport() {
+        // Two new parolees, one per line.
+        String ndjson = "{ \"firstName\": \"Jesse\", \"lastName\": \"James\", \"gender\": \"MALE\", \"dateOfBirth\": \"1847-09-05\" }\n"
+                + "{ \"firstName\": \"Bonnie\", \"lastName\": \"Parker\", \"gender\": \"FEMALE\", \"dateOfBirth\": \"1910-10-01\" }\n";
+
+        // Make a HTTP POST request to create both Parolees at once.
+        try (Response response = client.target(WEB_SERVICE_URI + "/bulk")
+                .request()
+                .post(Entity.entity(ndjson, "application/x-ndjson"))) {
+
+            // Check that the HTTP response code is 200 OK.
+            int status = response.getStatus();
+            assertEquals(200, status);
+        }
+
+        // Make a HTTP GET request to export all Parolees.
+        try (Response response = client.target(WEB_SERVICE_URI + "/export")
+                .request()
+                .accept("application/x-ndjson")
+                .get()) {
+
+            // Check that the HTTP response code is 200 OK, and that there's a line for every Parolee.
+            int status = response.getStatus();
+            assertEquals(200, status);
+
+            String export = response.readEntity(String.class);
+            assertEquals(PAROLEE_PAYLOADS.length + 2, export.split("\n").length);
+        }
+    }
+
+    @Test
+    public void testConditionalRetrieveAndUpdate() {
+        String paroleeUri = paroleeUris.get(0);
+
+        // Retrieve the Parolee, remembering its ETag.
+        EntityTag tag;
+        try (Response response = client.target(paroleeUri).request().accept("application/java-serialization").get()) {
+            assertEquals(200, response.getStatus());
+            tag = response.getEntityTag();
+        }
+
+        // Retrieving it again with that ETag should return 304 Not Modified, with no body.
+        try (Response response = client.target(paroleeUri)
+                .request()
+                .accept("application/java-serialization")
+                .header(HttpHeaders.IF_NONE_MATCH, tag)
+                .get()) {
+            assertEquals(304, response.getStatus());
+            assertFalse(response.hasEntity());
+        }
+
+        // Updating it with that ETag should succeed, and change the ETag.
+        Parolee updateParolee = new Parolee(null, "Al", "Capone", Gender.FEMALE, "1899-01-17");
+        try (Response response = client.target(paroleeUri)
+                .request()
+                .header(HttpHeaders.IF_MATCH, tag)
+                .put(Entity.entity(updateParolee, "application/java-serialization"))) {
+            assertEquals(204, response.getStatus());
+            assertNotEquals(tag, response.getEntityTag());
+        }
+
+        // Updating it again with the old ETag should fail, as the client's copy is out of date.
+        try (Response response = client.target(paroleeUri)
+                .request()
+                .header(HttpHeaders.IF_MATCH, tag)
+                .put(Entity.entity(updateParolee, "application/java-serialization"))) {
+            assertEquals(412, response.getStatus());
+        }
+    }
+
     @Test
     public void testUpdate() {
         // Give Al Capone a gender change
@@ -7,12 +7,9 @@ import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 public class LocalDateDeserializer extends StdDeserializer<LocalDate> {
 
-    private static DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
-
     public LocalDateDeserializer() {
         this(null);
     }
@@ -23,6 +20,6 @@ public class LocalDateDeserializer extends StdDeserializer<LocalDate> {
 
     @Override
     public LocalDate deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
-        return LocalDate.parse(jsonParser.getText(), FORMATTER);
+        return IsoDateTimes.readDate(jsonParser);
     }
 }
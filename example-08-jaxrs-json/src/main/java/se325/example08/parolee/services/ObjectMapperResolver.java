@@ -0,0 +1,47 @@
+package se325.example08.parolee.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import se325.example08.parolee.domain.DateTimeModule;
+
+import javax.ws.rs.ext.ContextResolver;
+
+/**
+ * Supplies the ObjectMapper which the JAX-RS run-time's Jackson provider reads and writes JSON with.
+ * <p>
+ * Without this, the provider creates a default mapper of its own, which only uses our java.time serializers where
+ * they're named in annotations, and which looks up the serializer and deserializer for each type the first time a
+ * request needs it, while that request waits. Instead, one mapper is built, with the {@link DateTimeModule}, when the
+ * application starts, and the serializers and deserializers for the given types are looked up (and cached by the
+ * mapper) straight away. The mapper is never reconfigured after that, so it's safe to share between all requests.
+ */
+public class ObjectMapperResolver implements ContextResolver<ObjectMapper> {
+
+    private final ObjectMapper mapper;
+
+    /**
+     * @param types the types which the service reads and writes.
+     */
+    public ObjectMapperResolver(Class<?>... types) {
+        mapper = createObjectMapper();
+        for (Class<?> type : types) {
+            // Creating an ObjectWriter or ObjectReader for a type looks up its serializer or deserializer.
+            mapper.writerFor(type);
+            mapper.readerFor(type);
+        }
+    }
+
+    /**
+     * Creates a new ObjectMapper, configured in the same way as the one this resolver supplies.
+     */
+    public static ObjectMapper createObjectMapper() {
+        return JsonMapper.builder()
+                .addModule(new DateTimeModule())
+                .build();
+    }
+
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return mapper;
+    }
+}
@@ -1,5 +1,7 @@
 package se325.example08.parolee.services;
 
+import se325.example08.parolee.domain.Parolee;
+
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 import java.util.HashSet;
@@ -18,9 +20,12 @@ import java.util.Set;
 public class ParoleeApplication extends Application {
 
     private Set<Object> singletons = new HashSet<>();
+    private Set<Class<?>> classes = new HashSet<>();
 
     public ParoleeApplication() {
         singletons.add(new ParoleeResource());
+        classes.add(RepresentationWriter.class);
+        singletons.add(new ObjectMapperResolver(Parolee.class));
     }
 
     @Override
@@ -29,4 +34,9 @@ public class ParoleeApplication extends Application {
         // used to process all incoming requests on Parolee resources.
         return singletons;
     }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+        return classes;
+    }
 }
\ No newline at end of file
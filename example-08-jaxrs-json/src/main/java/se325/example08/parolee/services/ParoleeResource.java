@@ -1,8 +1,12 @@
 package se325.example08.parolee.services;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.Consumes;
@@ -13,10 +17,27 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import se325.example08.parolee.domain.Gender;
 import se325.example08.parolee.domain.Parolee;
 
 import org.slf4j.Logger;
@@ -27,6 +48,11 @@ import org.slf4j.LoggerFactory;
  * <p>
  * ParoleeResource implements a WEB service with the following interface:
  * <p>
+ * - GET    <base-uri>/parolees?lastName=...&gender=...&bornAfter=...&bornBefore=...
+ * Retrieves all parolees which match the given (optional) criteria, or all
+ * parolees if there are no criteria. The format of the returned data is a
+ * JSON array.
+ * <p>
  * - GET    <base-uri>/parolees/{id}
  * Retrieves a parolee based on their unique id. The format of the
  * returned data is JSON.
@@ -35,6 +61,13 @@ import org.slf4j.LoggerFactory;
  * Creates a new Parolee. The HTTP post message contains an JSON
  * representation of the parolee to be created.
  * <p>
+ * - POST   <base-uri>/parolees/bulk
+ * Creates many new Parolees at once. The HTTP post message contains
+ * newline-delimited JSON (one JSON representation of a parolee per line).
+ * <p>
+ * - GET    <base-uri>/parolees/export
+ * Retrieves all parolees, as newline-delimited JSON.
+ * <p>
  * - PUT    <base-uri>/parolees/{id}
  * Updates a parolee, identified by their id.The HTTP PUT message
  * contains an JSON document describing the new state of the parolee.
@@ -48,10 +81,42 @@ import org.slf4j.LoggerFactory;
 @Path("/parolees")
 public class ParoleeResource {
 
+    /**
+     * Media type for newline-delimited JSON, where each line holds a complete
+     * JSON document.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * The number of Parolees a bulk import parses before storing them all at
+     * once.
+     */
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    /**
+     * The most bytes of encoded Parolees to keep in the representation cache.
+     */
+    private static final long REPRESENTATION_CACHE_BYTES = 16 * 1024 * 1024;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(ParoleeResource.class);
 
-    private Map<Long, Parolee> paroleeDB = new ConcurrentHashMap<>();
+    /**
+     * Bulk import and export read and write many Parolees through a single
+     * parser or generator, so they use their own mapper rather than the
+     * JAX-RS provider's (configured the same way). ObjectReaders and
+     * ObjectWriters are immutable and thread-safe, so they're created once and
+     * shared.
+     */
+    private static final ObjectMapper MAPPER = ObjectMapperResolver.createObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    private static final ObjectReader PAROLEE_READER = MAPPER.readerFor(Parolee.class);
+    private static final ObjectWriter PAROLEE_WRITER = MAPPER.writerFor(Parolee.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private ParoleeStore paroleeDB = new ParoleeStore();
     private AtomicLong idCounter = new AtomicLong();
+    private RepresentationCache representations = new RepresentationCache(REPRESENTATION_CACHE_BYTES);
 
     /**
      * Creates a new Parolee.
@@ -68,64 +133,214 @@ public class ParoleeResource {
 
         // Generate an ID for the new Parolee, and store it in memory.
         parolee.setId(idCounter.incrementAndGet());
-        paroleeDB.put(parolee.getId(), parolee);
+        long version = paroleeDB.add(parolee);
 
         LOGGER.debug("Created parolee with id: " + parolee.getId());
 
         return Response
                 .created(URI.create("/parolees/" + parolee.getId()))
+                .tag(entityTag(version))
                 .build();
     }
 
+    /**
+     * Creates many new Parolees at once, from newline-delimited JSON.
+     * <p>
+     * The request body is parsed incrementally, one Parolee at a time, and
+     * Parolees are stored in batches of {@link #IMPORT_BATCH_SIZE}. Each batch
+     * is given a block of consecutive ids with a single update to the id
+     * counter. So however many Parolees are sent, only one batch of them is
+     * held in memory at a time, apart from the store itself.
+     * <p>
+     * Every field but the id is required, as it is by the other examples'
+     * bulk imports. If a line can't be parsed, or is missing a field, a 400
+     * response is returned, but any batches stored before then are kept.
+     *
+     * @param is the newline-delimited JSON representations of the Parolees.
+     * @return a 200 response, whose JSON body gives the number of Parolees
+     * created.
+     */
+    @POST
+    @Path("bulk")
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importParolees(InputStream is) {
+        List<Parolee> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        long created = 0;
+
+        try (MappingIterator<Parolee> parolees = PAROLEE_READER.readValues(is)) {
+            while (parolees.hasNextValue()) {
+                Parolee parolee = parolees.nextValue();
+                if (parolee.getFirstName() == null || parolee.getLastName() == null
+                        || parolee.getGender() == null || parolee.getDateOfBirth() == null) {
+                    throw new JsonParseException(parolees.getParser(), "Parolee is missing a required field");
+                }
+                batch.add(parolee);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    created += storeBatch(batch);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.info("Bulk import failed after creating " + created + " parolees", e);
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+        created += storeBatch(batch);
+
+        LOGGER.debug("Bulk imported " + created + " parolees");
+
+        return Response.ok("{ \"created\": " + created + " }").build();
+    }
+
+    /**
+     * Retrieves all Parolees, as newline-delimited JSON. The Parolees are
+     * streamed out straight from the in-memory data structure, without first
+     * being copied into a list.
+     *
+     * @return a StreamingOutput object that writes out the state of every
+     * Parolee, one per line.
+     */
+    @GET
+    @Path("export")
+    @Produces(APPLICATION_NDJSON)
+    public StreamingOutput exportParolees() {
+        LOGGER.info("Exporting all parolees");
+        return (outputStream) -> {
+            try (JsonGenerator generator = MAPPER.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                boolean any = false;
+                for (Parolee parolee : paroleeDB.values()) {
+                    PAROLEE_WRITER.writeValue(generator, parolee);
+                    any = true;
+                }
+                if (any) {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+    }
+
+    /**
+     * Retrieves the Parolees which match all of the given criteria. Matching
+     * Parolees are found by intersecting the store's indexes, rather than by
+     * looking at every Parolee. Returns a 400 response if a criterion is
+     * invalid.
+     *
+     * @param lastName   if given, only Parolees with exactly this last name
+     *                   are returned.
+     * @param gender     if given, only Parolees of this Gender are returned.
+     * @param bornAfter  if given, only Parolees born after this date (in ISO
+     *                   format, e.g. 1899-01-17) are returned.
+     * @param bornBefore if given, only Parolees born before this date are
+     *                   returned.
+     * @return the matching Parolees, in id order if any criteria were given.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<Parolee> retrieveParolees(@QueryParam("lastName") String lastName,
+                                          @QueryParam("gender") String gender,
+                                          @QueryParam("bornAfter") String bornAfter,
+                                          @QueryParam("bornBefore") String bornBefore) {
+        try {
+            return paroleeDB.find(lastName,
+                    gender == null ? null : Gender.valueOf(gender),
+                    bornAfter == null ? null : LocalDate.parse(bornAfter),
+                    bornBefore == null ? null : LocalDate.parse(bornBefore));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+    }
+
     /**
      * Attempts to retrieve a particular Parolee based on their unique id. If
      * the required Parolee is found, this method returns a 200 response along
      * with an JSON representation of the Parolee. In other cases, this method
      * returns a 404 response.
+     * <p>
+     * Every response includes an ETag header, derived from the Parolee's
+     * version number. If the request's If-None-Match header already has that
+     * ETag, the client's copy is up to date, so this method returns a 304
+     * (Not Modified) response with no body instead.
+     * <p>
+     * Parolees are read far more often than they're changed, so rather than
+     * serializing the same Parolee over and over again, its JSON is cached,
+     * and served as-is by {@link RepresentationWriter} until the Parolee is
+     * updated or deleted.
      *
-     * @param id the unique id of the Parolee to be returned.
-     * @return a StreamingOutput object that writes out the Parolee state in
-     * JSON form.
+     * @param id      the unique id of the Parolee to be returned.
+     * @param request the request, used to evaluate its conditional headers.
+     * @return a Response containing the Parolee, or a 304 response.
      */
     @GET
     @Path("{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Parolee retrieveParolee(@PathParam("id") long id) {
+    public Response retrieveParolee(@PathParam("id") long id, @Context Request request) {
         LOGGER.info("Retrieving parolee with id: " + id);
         // Lookup the Parolee within the in-memory data structure.
-        final Parolee parolee = paroleeDB.get(id);
-        if (parolee == null) {
+        // The Parolee and its version number are read together, so that the
+        // ETag is always that of the body sent.
+        final ParoleeStore.Versioned versioned = paroleeDB.getVersioned(id);
+        if (versioned == null) {
             // Return a HTTP 404 response if the specified Parolee isn't found.
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
+        final Parolee parolee = versioned.getParolee();
+
+        // If the client already has this version of the Parolee, don't send it again.
+        EntityTag tag = entityTag(versioned.getVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
 
-        return parolee;
+        return Response.ok(representation(parolee, tag)).tag(tag).build();
     }
 
     /**
      * Attempts to update an existing Parolee. If the specified Parolee is
      * found it is updated, resulting in a HTTP 204 response being returned to
-     * the consumer. In other cases, a 404 response is returned.
+     * the consumer, with the Parolee's new ETag. In other cases, a 404
+     * response is returned.
+     * <p>
+     * If the request has an If-Match header, the Parolee is only updated if
+     * that matches its current ETag. Otherwise, someone else has changed the
+     * Parolee since the client last retrieved it, and a 412 (Precondition
+     * Failed) response is returned instead, so that their changes aren't lost.
      *
-     * @param id     the unique id of the Parolee to update.
-     * @param update the Parolee to update
+     * @param id      the unique id of the Parolee to update.
+     * @param update  the Parolee to update
+     * @param request the request, used to evaluate its conditional headers.
+     * @param headers the request's headers.
      */
     @PUT
     @Path("{id}")
     @Consumes(MediaType.APPLICATION_JSON)
-    public void updateParolee(@PathParam("id") long id, Parolee update) {
-        Parolee current = paroleeDB.get(id);
-        if (current == null) {
+    public Response updateParolee(@PathParam("id") long id, Parolee update,
+                                  @Context Request request, @Context HttpHeaders headers) {
+        long version = paroleeDB.version(id);
+        if (version == 0) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
 
-        // Update the details of the Parolee to be updated.
-        current.setFirstName(update.getFirstName());
-        current.setLastName(update.getLastName());
-        current.setGender(update.getGender());
-        current.setDateOfBirth(update.getDateOfBirth());
+        Response.ResponseBuilder preconditionFailed = request.evaluatePreconditions(entityTag(version));
+        if (preconditionFailed != null) {
+            return preconditionFailed.build();
+        }
 
-        // Methods with no return type (i.e. void) will return HTTP 204 to the client.
+        // Update the details of the Parolee to be updated, and re-index it.
+        // If the client gave an ETag, the update must still be based on that
+        // version; it may have changed since we checked.
+        long expectedVersion = headers.getHeaderString(HttpHeaders.IF_MATCH) == null ? 0 : version;
+        long newVersion = paroleeDB.update(id, update, expectedVersion);
+        if (newVersion == 0) {
+            if (paroleeDB.get(id) == null) {
+                throw new WebApplicationException(Response.Status.NOT_FOUND);
+            }
+            return Response.status(Response.Status.PRECONDITION_FAILED).build();
+        }
+
+        representations.invalidate(id);
+
+        return Response.noContent().tag(entityTag(newVersion)).build();
     }
 
     /**
@@ -138,13 +353,11 @@ public class ParoleeResource {
     @DELETE
     @Path("{id}")
     public void deleteParolee(@PathParam("id") long id) {
-        Parolee current = paroleeDB.get(id);
-        if (current == null) {
+        // Remove the Parolee.
+        if (paroleeDB.remove(id) == null) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
-
-        // Remove the Parolee.
-        paroleeDB.remove(id);
+        representations.invalidate(id);
         LOGGER.info("Deleted parolee with ID: " + id);
 
         // Methods with no return type (i.e. void) will return HTTP 204 to the client.
@@ -156,7 +369,70 @@ public class ParoleeResource {
     @DELETE
     public void deleteAllParolees() {
         paroleeDB.clear();
+        representations.clear();
         idCounter = new AtomicLong();
     }
 
+    /**
+     * Creates the ETag for a particular version of a Parolee. Version numbers
+     * are unique across all Parolees, so the version number alone is enough.
+     */
+    private static EntityTag entityTag(long version) {
+        return new EntityTag(Long.toString(version));
+    }
+
+    /**
+     * Gets the cached JSON representation of a Parolee, or serializes and
+     * caches it if it isn't cached yet.
+     * <p>
+     * Stored Parolees are never modified, so the representation always matches
+     * the ETag. But if the Parolee has been updated since it was retrieved,
+     * the representation isn't cached, as it would never be served again.
+     *
+     * @param parolee the Parolee to get the representation of.
+     * @param tag     the ETag of the version of the Parolee being retrieved.
+     */
+    private Representation representation(Parolee parolee, EntityTag tag) {
+        long id = parolee.getId();
+        long version = Long.parseLong(tag.getValue());
+
+        Representation representation = representations.get(id, version, MediaType.APPLICATION_JSON);
+        if (representation != null) {
+            return representation;
+        }
+
+        try {
+            representation = new Representation(PAROLEE_WRITER.writeValueAsBytes(parolee));
+        } catch (IOException e) {
+            throw new WebApplicationException(e);
+        }
+        if (paroleeDB.version(id) == version) {
+            representations.put(id, version, MediaType.APPLICATION_JSON, representation);
+        }
+        return representation;
+    }
+
+    /**
+     * Gives a batch of new Parolees a block of consecutive ids, and stores
+     * them all. The batch is then cleared, so that it can be reused.
+     *
+     * @param batch the Parolees to store.
+     * @return the number of Parolees stored.
+     */
+    private int storeBatch(List<Parolee> batch) {
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        long id = idCounter.getAndAdd(size);
+        for (Parolee parolee : batch) {
+            parolee.setId(++id);
+        }
+        paroleeDB.addAll(batch);
+
+        batch.clear();
+        return size;
+    }
+
 }
@@ -0,0 +1,25 @@
+package se325.example08.parolee.services;
+
+/**
+ * An already-encoded representation of a resource, e.g. a Parolee serialized to JSON. Returning one of these from a
+ * resource method means {@link RepresentationWriter} copies its bytes straight to the response, rather than the
+ * entity being serialized all over again.
+ * <p>
+ * Representations are shared between requests, so the bytes must never be modified.
+ */
+public final class Representation {
+
+    private final byte[] bytes;
+
+    public Representation(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getLength() {
+        return bytes.length;
+    }
+}
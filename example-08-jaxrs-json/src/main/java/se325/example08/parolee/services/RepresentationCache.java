@@ -0,0 +1,120 @@
+package se325.example08.parolee.services;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Cache of already-encoded {@link Representation}s of Parolees, keyed by Parolee id and media type.
+ * <p>
+ * Each entry remembers the version number of the Parolee it was encoded from, and is only returned for that same
+ * version, so a cached representation can never be older than the Parolee itself, even if an update races with a
+ * retrieval. Entries are also removed as soon as their Parolee is updated or deleted, so they don't take up space.
+ * <p>
+ * The cache is bounded by the total number of bytes it holds rather than by its number of entries, as that's what
+ * actually determines how much memory it uses. When adding an entry takes it over that limit, the least recently used
+ * entries are evicted until it's back under. Entries are kept in access order by a {@link LinkedHashMap}; as a get
+ * reorders the map, every operation must lock it.
+ */
+public class RepresentationCache {
+
+    private final long maxBytes;
+    private long bytes;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> mediaTypes = new HashSet<>();
+
+    /**
+     * @param maxBytes the most bytes of representations to hold at once. A representation bigger than this is never
+     *                 cached.
+     */
+    public RepresentationCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the cached representation of the given version of a Parolee, or null if there isn't one.
+     */
+    public synchronized Representation get(long id, long version, String mediaType) {
+        Entry entry = entries.get(new Key(id, mediaType));
+        return entry == null || entry.version != version ? null : entry.representation;
+    }
+
+    /**
+     * Caches a representation of the given version of a Parolee, replacing any other version's, and evicts the least
+     * recently used representations if the cache is now too big.
+     */
+    public synchronized void put(long id, long version, String mediaType, Representation representation) {
+        if (representation.getLength() > maxBytes) {
+            return;
+        }
+
+        mediaTypes.add(mediaType);
+        Entry previous = entries.put(new Key(id, mediaType), new Entry(version, representation));
+        if (previous != null) {
+            bytes -= previous.representation.getLength();
+        }
+        bytes += representation.getLength();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().representation.getLength();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Removes all of the cached representations of a Parolee.
+     */
+    public synchronized void invalidate(long id) {
+        for (String mediaType : mediaTypes) {
+            Entry removed = entries.remove(new Key(id, mediaType));
+            if (removed != null) {
+                bytes -= removed.representation.getLength();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached representations.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        mediaTypes.clear();
+        bytes = 0;
+    }
+
+    private static final class Key {
+        private final long id;
+        private final String mediaType;
+
+        Key(long id, String mediaType) {
+            this.id = id;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return id == key.id && mediaType.equals(key.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id) * 31 + mediaType.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final Representation representation;
+
+        Entry(long version, Representation representation) {
+            this.version = version;
+            this.representation = representation;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package se325.example08.parolee.services;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Writes a {@link Representation}'s bytes, as they are, to the entity stream.
+ * <p>
+ * Jackson's provider will write any type at all as JSON, so this writer must produce JSON too: JAX-RS picks the
+ * writer with the most specific media type first, and only then the one closest to the entity's type, which is this
+ * one.
+ * <p>
+ * As the size is known up front, it's reported to the JAX-RS run-time, which uses it to set the Content-Length header
+ * instead of buffering or chunking the response.
+ */
+@Produces(MediaType.APPLICATION_JSON)
+public class RepresentationWriter implements MessageBodyWriter<Representation> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType,
+                               Annotation[] annotations, MediaType mediaType) {
+        return Representation.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(Representation representation, Class<?> type, Type genericType,
+                        Annotation[] annotations, MediaType mediaType) {
+        return representation.getLength();
+    }
+
+    @Override
+    public void writeTo(Representation representation, Class<?> type, Type genericType,
+                        Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        entityStream.write(representation.getBytes());
+    }
+}
@@ -0,0 +1,183 @@
+package se325.example08.parolee.domain;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link IsoDateTimes} gives exactly the same results as the ISO formatters it stands in for, both on its
+ * fast paths and on the text it leaves to the formatters. The other examples' copies of IsoDateTimes are identical.
+ */
+public class TestIsoDateTimes {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final LocalDate[] DATES = {
+            LocalDate.of(1899, 1, 17),
+            LocalDate.of(2020, 2, 29),
+            LocalDate.of(0, 1, 1),
+            LocalDate.of(9999, 12, 31),
+            LocalDate.of(-1, 6, 15),
+            LocalDate.of(10000, 1, 1),
+            LocalDate.MIN,
+            LocalDate.MAX
+    };
+
+    private static final LocalTime[] TIMES = {
+            LocalTime.MIDNIGHT,
+            LocalTime.of(10, 15),
+            LocalTime.of(10, 15, 30),
+            LocalTime.of(10, 15, 30, 1),
+            LocalTime.of(10, 15, 30, 100_000_000),
+            LocalTime.of(10, 15, 30, 120_000_000),
+            LocalTime.of(10, 15, 30, 123_456_789),
+            LocalTime.of(10, 15, 30, 123_456_000),
+            LocalTime.MAX
+    };
+
+    @Test
+    public void testWriteDate() throws IOException {
+        for (LocalDate date : DATES) {
+            String json = write(generator -> IsoDateTimes.writeDate(generator, date));
+            assertEquals(quote(date.format(DateTimeFormatter.ISO_LOCAL_DATE)), json);
+        }
+    }
+
+    @Test
+    public void testWriteTime() throws IOException {
+        for (LocalTime time : TIMES) {
+            String json = write(generator -> IsoDateTimes.writeTime(generator, time));
+            assertEquals(quote(time.format(DateTimeFormatter.ISO_LOCAL_TIME)), json);
+        }
+    }
+
+    @Test
+    public void testWriteDateTime() throws IOException {
+        for (LocalDate date : DATES) {
+            for (LocalTime time : TIMES) {
+                LocalDateTime dateTime = LocalDateTime.of(date, time);
+                String json = write(generator -> IsoDateTimes.writeDateTime(generator, dateTime));
+                assertEquals(quote(dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)), json);
+            }
+        }
+    }
+
+    @Test
+    public void testReadDate() throws IOException {
+        for (String text : new String[]{"1899-01-17", "2020-02-29", "0000-01-01", "9999-12-31", "-0001-06-15",
+                "+10000-01-01", "+999999999-12-31"}) {
+            assertEquals(LocalDate.parse(text, DateTimeFormatter.ISO_LOCAL_DATE), IsoDateTimes.readDate(parser(text)));
+        }
+    }
+
+    /**
+     * The formatters accept a decimal point without any digits after it, which IsoDateTimes leaves to them.
+     */
+    @Test
+    public void testReadTime() throws IOException {
+        for (String text : new String[]{"00:00:00", "10:15", "10:15:30", "10:15:30.1", "10:15:30.12",
+                "10:15:30.000000001", "10:15:30.123456789", "23:59:59.999999999", "10:15:30."}) {
+            assertEquals(LocalTime.parse(text, DateTimeFormatter.ISO_LOCAL_TIME), IsoDateTimes.readTime(parser(text)));
+        }
+    }
+
+    @Test
+    public void testReadDateTime() throws IOException {
+        for (String text : new String[]{"1899-01-17T00:00:00", "2020-02-29T10:15", "2020-02-29T10:15:30",
+                "2020-02-29T10:15:30.5", "2020-02-29T10:15:30.123456789", "-0001-06-15T10:15:30",
+                "+10000-01-01T00:00", "2020-02-29T10:15:30."}) {
+            assertEquals(LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                    IsoDateTimes.readDateTime(parser(text)));
+        }
+    }
+
+    @Test
+    public void testReadInvalidDate() throws IOException {
+        for (String text : new String[]{"2019-02-29", "2020-13-01", "2020-00-10", "2020-01-32", "2020/01/01",
+                "2020-1-01", "20x0-01-01", "10000-01-01", ""}) {
+            assertSameError(() -> LocalDate.parse(text, DateTimeFormatter.ISO_LOCAL_DATE),
+                    () -> IsoDateTimes.readDate(parser(text)));
+        }
+    }
+
+    @Test
+    public void testReadInvalidTime() throws IOException {
+        for (String text : new String[]{"24:00:00", "10:60:00", "10:15:60", "10:15:30.1234567890",
+                "10:15:30,5", "10-15-30", "1:15:30", "10"}) {
+            assertSameError(() -> LocalTime.parse(text, DateTimeFormatter.ISO_LOCAL_TIME),
+                    () -> IsoDateTimes.readTime(parser(text)));
+        }
+    }
+
+    @Test
+    public void testReadInvalidDateTime() throws IOException {
+        for (String text : new String[]{"2019-02-29T10:15:30", "2020-01-01T24:00:00", "2020-01-01 10:15:30",
+                "2020-01-01", "2020-01-01T"}) {
+            assertSameError(() -> LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                    () -> IsoDateTimes.readDateTime(parser(text)));
+        }
+    }
+
+    private interface Writing {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private interface Reading {
+        Object read() throws IOException;
+    }
+
+    private static String write(Writing writing) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            writing.write(generator);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Creates a parser whose current token is the given text, as a JSON string.
+     */
+    private static JsonParser parser(String text) throws IOException {
+        JsonParser parser = JSON_FACTORY.createParser(quote(text));
+        parser.nextToken();
+        return parser;
+    }
+
+    private static String quote(String text) {
+        return '"' + text + '"';
+    }
+
+    /**
+     * Checks that IsoDateTimes rejects text with the same error as the formatter.
+     */
+    private static void assertSameError(Reading formatter, Reading isoDateTimes) throws IOException {
+        DateTimeParseException expected = null;
+        try {
+            formatter.read();
+        } catch (DateTimeParseException e) {
+            expected = e;
+        }
+        if (expected == null) {
+            fail("Formatter accepted invalid text");
+        }
+
+        try {
+            Object value = isoDateTimes.read();
+            fail("Expected " + expected.getMessage() + ", but read " + value);
+        } catch (DateTimeParseException e) {
+            assertEquals(expected.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package se325.example08.parolee.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -9,6 +11,9 @@ import java.util.List;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -118,6 +123,128 @@ public class ParoleeResourceIT {
 
     }
 
+    @Test
+    public void testQuery() {
+        // Make a HTTP GET request for male Parolees born in the 1900s.
+        try (Response response = client.target(WEB_SERVICE_URI)
+                .queryParam("gender", "MALE")
+                .queryParam("bornAfter", "1899-12-31")
+                .queryParam("bornBefore", "2000-01-01")
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get()) {
+
+            // Check that the HTTP response code is 200 OK, and that only Gotti, Escobar and Marcello match.
+            int status = response.getStatus();
+            assertEquals(200, status);
+
+            List<Parolee> parolees = response.readEntity(new GenericType<List<Parolee>>() {
+            });
+            assertEquals(3, parolees.size());
+        }
+
+        // Make a HTTP GET request for Parolees with a particular last name.
+        try (Response response = client.target(WEB_SERVICE_URI)
+                .queryParam("lastName", "Capone")
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get()) {
+
+            List<Parolee> parolees = response.readEntity(new GenericType<List<Parolee>>() {
+            });
+            assertEquals(1, parolees.size());
+            assertEquals("Al", parolees.get(0).getFirstName());
+        }
+    }
+
+    @Test
+    public void testBulkImportAndExport() {
+        // Two new parolees, one per line.
+        String ndjson = "{ \"firstName\": \"Jesse\", \"lastName\": \"James\", \"gender\": \"MALE\", \"dateOfBirth\": \"1847-09-05\" }\n"
+                + "{ \"firstName\": \"Bonnie\", \"lastName\": \"Parker\", \"gender\": \"FEMALE\", \"dateOfBirth\": \"1910-10-01\" }\n";
+
+        // Make a HTTP POST request to create both Parolees at once.
+        try (Response response = client.target(WEB_SERVICE_URI + "/bulk")
+                .request()
+                .post(Entity.entity(ndjson, "application/x-ndjson"))) {
+
+            // Check that the HTTP response code is 200 OK.
+            int status = response.getStatus();
+            assertEquals(200, status);
+        }
+
+        // Make a HTTP GET request to export all Parolees.
+        try (Response response = client.target(WEB_SERVICE_URI + "/export")
+                .request()
+                .accept("application/x-ndjson")
+                .get()) {
+
+            // Check that the HTTP response code is 200 OK, and that there's a line for every Parolee.
+            int status = response.getStatus();
+            assertEquals(200, status);
+
+            String export = response.readEntity(String.class);
+            assertEquals(PAROLEE_PAYLOADS.length + 2, export.split("\n").length);
+        }
+    }
+
+    @Test
+    public void testConditionalRetrieveAndUpdate() {
+        String paroleeUri = paroleeUris.get(0);
+
+        // Retrieve the Parolee, remembering its ETag.
+        EntityTag tag;
+        try (Response response = client.target(paroleeUri).request().accept(MediaType.APPLICATION_JSON).get()) {
+            assertEquals(200, response.getStatus());
+            tag = response.getEntityTag();
+        }
+
+        // Retrieving it again with that ETag should return 304 Not Modified, with no body.
+        try (Response response = client.target(paroleeUri)
+                .request()
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, tag)
+                .get()) {
+            assertEquals(304, response.getStatus());
+            assertFalse(response.hasEntity());
+        }
+
+        // Updating it with that ETag should succeed, and change the ETag.
+        Parolee updateParolee = new Parolee(null, "Al", "Capone", Gender.FEMALE, "1899-01-17");
+        try (Response response = client.target(paroleeUri)
+                .request()
+                .header(HttpHeaders.IF_MATCH, tag)
+                .put(Entity.json(updateParolee))) {
+            assertEquals(204, response.getStatus());
+            assertNotEquals(tag, response.getEntityTag());
+        }
+
+        // Updating it again with the old ETag should fail, as the client's copy is out of date.
+        try (Response response = client.target(paroleeUri)
+                .request()
+                .header(HttpHeaders.IF_MATCH, tag)
+                .put(Entity.json(updateParolee))) {
+            assertEquals(412, response.getStatus());
+        }
+    }
+
+    @Test
+    public void testRetrieveAfterUpdate() {
+        String paroleeUri = paroleeUris.get(0);
+
+        // Retrieve the Parolee twice, so that the second time it comes from the server's cache.
+        for (int i = 0; i < 2; i++) {
+            assertEquals(Gender.MALE, client.target(paroleeUri).request(MediaType.APPLICATION_JSON).get(Parolee.class).getGender());
+        }
+
+        // Update the Parolee, and check that the update is seen rather than the cached copy.
+        Parolee updateParolee = new Parolee(null, "Al", "Capone", Gender.FEMALE, "1899-01-17");
+        try (Response response = client.target(paroleeUri).request().put(Entity.json(updateParolee))) {
+            assertEquals(204, response.getStatus());
+        }
+        assertEquals(Gender.FEMALE, client.target(paroleeUri).request(MediaType.APPLICATION_JSON).get(Parolee.class).getGender());
+    }
+
     @Test
     public void testUpdate() {
         // Give Al Capone a gender change
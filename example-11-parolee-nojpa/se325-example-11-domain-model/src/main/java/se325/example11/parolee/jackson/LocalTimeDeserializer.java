@@ -8,12 +8,9 @@ import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 
 public class LocalTimeDeserializer extends StdDeserializer<LocalTime> {
 
-    private static DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_TIME;
-
     public LocalTimeDeserializer() {
         this(null);
     }
@@ -24,6 +21,6 @@ public class LocalTimeDeserializer extends StdDeserializer<LocalTime> {
 
     @Override
     public LocalTime deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
-        return LocalTime.parse(jsonParser.getText(), FORMATTER);
+        return IsoDateTimes.readTime(jsonParser);
     }
 }
@@ -151,30 +151,39 @@ public class ParoleeResource {
      * Returns a particular Parolee. The returned Parolee is represented by a
      * Parolee object.
      *
-     * @param id the unique identifier of the Parolee.
+     * @param id     the unique identifier of the Parolee.
+     * @param fields the Parolee's properties to return, separated by commas (see {@link FieldProjection}), or null for
+     *               all of them.
      */
     @GET
+    @FieldProjection.Projected
     @Path("{id}")
     @Produces(MediaType.APPLICATION_JSON)
-    public ParoleeDTO getParolee(@PathParam("id") long id) {
+    public ParoleeDTO getParolee(@PathParam("id") long id, @QueryParam("fields") String fields) {
+        FieldProjection projection = FieldProjection.of(fields);
         // Get the Parolee object from the database.
         Parolee parolee = paroleeDB.getParolee(id);
 
         // JAX-RS will processed the returned value, marshalling it and storing
         // it in the HTTP response message body. It will use the default status
         // code of 200 Ok.
-        return ParoleeDTO.fromDomain(parolee);
+        ParoleeDTO dtoParolee = ParoleeDTO.fromDomain(parolee, projection::includes);
+        return dtoParolee;
     }
 
     /**
      * Returns a view of the Parolee database, represented as a List of
-     * Parolee objects.
+     * Parolee objects. Only the properties named in the optional "fields" query
+     * parameter are returned for each Parolee (see {@link FieldProjection}).
      */
     @GET
+    @FieldProjection.Projected
     @Produces(MediaType.APPLICATION_JSON)
     public Response getParolees(@DefaultValue("-1") @QueryParam("page") int pageNum,
                                 @DefaultValue("-1") @QueryParam("size") int pageSize,
+                                @QueryParam("fields") String fields,
                                 @Context UriInfo uriInfo) {
+        FieldProjection projection = FieldProjection.of(fields);
 
         URI uri = uriInfo.getAbsolutePath();
 
@@ -205,7 +214,8 @@ public class ParoleeResource {
             domainParolees = paroleeDB.getParolees(pageNum * pageSize, pageSize);
         }
         List<ParoleeDTO> dtoParolees = domainParolees.stream()
-                .map(ParoleeDTO::fromDomain).collect(Collectors.toList());
+                .map(parolee -> ParoleeDTO.fromDomain(parolee, projection::includes))
+                .collect(Collectors.toList());
 
         // Create a GenericEntity to wrap the list of Parolees to return. This
         // is necessary to preserve generic type data when using any
@@ -1,21 +1,31 @@
 package se325.example11.parolee.services;
 
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Variant;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.*;
 
 import se325.example11.parolee.domain.*;
@@ -347,4 +357,117 @@ public class ParoleeWebServiceIT {
         assertTrue(movementsForOliver.get(0).getTimestamp().isAfter(movementsForOliver.get(1).getTimestamp()));
         assertTrue(movementsForOliver.get(1).getTimestamp().isAfter(movementsForOliver.get(2).getTimestamp()));
     }
+
+    /**
+     * Tests that a large list of Parolees is gzip-compressed, if the client
+     * accepts gzip.
+     */
+    @Test
+    public void queryAllParoleesCompressed() throws IOException {
+        // Add enough Parolees that the list is bigger than the compression threshold.
+        for (int i = 0; i < 10; i++) {
+            ParoleeDTO parolee = new ParoleeDTO("Salcic" + i, "Zoran", Gender.MALE,
+                    LocalDate.of(1958, 5, 17), new Address("34", "Appleby Road", "Remuera", "Auckland", "1070"));
+            CLIENT.target(WEB_SERVICE_URI).request().post(Entity.json(parolee)).close();
+        }
+
+        Response response = CLIENT
+                .target(WEB_SERVICE_URI).request()
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .get();
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+
+        // Decompress the body with the JDK's own gzip implementation.
+        List<ParoleeDTO> parolees;
+        try (InputStream body = new GZIPInputStream(response.readEntity(InputStream.class))) {
+            parolees = new ObjectMapper().readValue(body, new TypeReference<List<ParoleeDTO>>() {
+            });
+        }
+        response.close();
+
+        assertEquals(13, parolees.size());
+    }
+
+    /**
+     * Tests that the Web service can process gzip-compressed request bodies.
+     */
+    @Test
+    public void addParoleeCompressed() throws IOException {
+        ParoleeDTO zoran = new ParoleeDTO("Salcic", "Zoran", Gender.MALE,
+                LocalDate.of(1958, 5, 17), new Address("34", "Appleby Road", "Remuera", "Auckland", "1070"));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            new ObjectMapper().writeValue(gzip, zoran);
+        }
+
+        Response response = CLIENT
+                .target(WEB_SERVICE_URI).request()
+                .post(Entity.entity(compressed.toByteArray(),
+                        new Variant(MediaType.APPLICATION_JSON_TYPE, (String) null, "gzip")));
+        assertEquals(201, response.getStatus());
+        String location = response.getLocation().toString();
+        response.close();
+
+        ParoleeDTO zoranFromService = CLIENT.target(location).request()
+                .accept(MediaType.APPLICATION_JSON).get(ParoleeDTO.class);
+        assertEquals(zoran.getLastName(), zoranFromService.getLastName());
+        assertEquals(zoran.getDateOfBirth(), zoranFromService.getDateOfBirth());
+    }
+
+    /**
+     * Tests that only the requested properties of a Parolee are returned, when
+     * the "fields" query parameter is given.
+     */
+    @Test
+    public void queryParoleeFields() throws IOException {
+        String json = CLIENT
+                .target(WEB_SERVICE_URI + "/1").queryParam("fields", "id,lastName").request()
+                .accept(MediaType.APPLICATION_JSON).get(String.class);
+
+        Map<String, Object> parolee = new ObjectMapper().readValue(json, new TypeReference<Map<String, Object>>() {
+        });
+        assertEquals(Set.of("id", "lastName"), parolee.keySet());
+        assertEquals("Sinnen", parolee.get("lastName"));
+    }
+
+    /**
+     * Tests that only the requested properties of each Parolee are returned
+     * from a query for all Parolees, and that other queries are unaffected.
+     */
+    @Test
+    public void queryAllParoleesFields() {
+        List<ParoleeDTO> parolees = CLIENT
+                .target(WEB_SERVICE_URI).queryParam("fields", "lastName").request()
+                .accept(MediaType.APPLICATION_JSON)
+                .get(new GenericType<>() {
+                });
+        assertEquals(3, parolees.size());
+        for (ParoleeDTO parolee : parolees) {
+            assertNull(parolee.getId());
+            assertNotNull(parolee.getLastName());
+            assertNull(parolee.getHomeAddress());
+            assertNull(parolee.getLastKnownPosition());
+        }
+
+        ParoleeDTO parolee = CLIENT
+                .target(WEB_SERVICE_URI + "/1").request()
+                .accept(MediaType.APPLICATION_JSON).get(ParoleeDTO.class);
+        assertEquals(1, (long) parolee.getId());
+        assertNotNull(parolee.getHomeAddress());
+    }
+
+    /**
+     * Tests that asking for a property Parolees don't have is a bad request.
+     */
+    @Test
+    public void queryParoleeUnknownField() {
+        Response response = CLIENT
+                .target(WEB_SERVICE_URI + "/1").queryParam("fields", "id,password").request()
+                .accept(MediaType.APPLICATION_JSON).get();
+        assertEquals(400, response.getStatus());
+        response.close();
+    }
 }
@@ -8,6 +8,7 @@ import se325.example12.parolee.jackson.LocalDateSerializer;
 
 import java.time.LocalDate;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class ParoleeDTO {
 
@@ -120,15 +121,37 @@ public class ParoleeDTO {
     }
 
     public static ParoleeDTO fromDomain(Parolee domainParolee) {
+        return fromDomain(domainParolee, property -> true);
+    }
+
+    /**
+     * Creates a DTO with only some of a Parolee's properties: those whose names are accepted by the given predicate.
+     * The others are left null, without ever being looked up.
+     */
+    public static ParoleeDTO fromDomain(Parolee domainParolee, Predicate<String> includes) {
         ParoleeDTO dtoParolee = new ParoleeDTO();
-        dtoParolee.setId(domainParolee.getId());
-        dtoParolee.setDateOfBirth(domainParolee.getDateOfBirth());
-        dtoParolee.setGender(domainParolee.getGender());
-        dtoParolee.setFirstName(domainParolee.getFirstName());
-        dtoParolee.setLastName(domainParolee.getLastName());
-        dtoParolee.setHomeAddress(domainParolee.getHomeAddress());
-
-        dtoParolee.setLastKnownPosition(domainParolee.getLastKnownPosition());
+        if (includes.test("id")) {
+            dtoParolee.setId(domainParolee.getId());
+        }
+        if (includes.test("dateOfBirth")) {
+            dtoParolee.setDateOfBirth(domainParolee.getDateOfBirth());
+        }
+        if (includes.test("gender")) {
+            dtoParolee.setGender(domainParolee.getGender());
+        }
+        if (includes.test("firstName")) {
+            dtoParolee.setFirstName(domainParolee.getFirstName());
+        }
+        if (includes.test("lastName")) {
+            dtoParolee.setLastName(domainParolee.getLastName());
+        }
+        if (includes.test("homeAddress")) {
+            dtoParolee.setHomeAddress(domainParolee.getHomeAddress());
+        }
+
+        if (includes.test("lastKnownPosition")) {
+            dtoParolee.setLastKnownPosition(domainParolee.getLastKnownPosition());
+        }
 
         return dtoParolee;
     }
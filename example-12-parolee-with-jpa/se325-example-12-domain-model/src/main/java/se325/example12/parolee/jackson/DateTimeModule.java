@@ -0,0 +1,24 @@
+package se325.example12.parolee.jackson;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Registers this package's serializers and deserializers for the java.time types with an ObjectMapper, so that it
+ * uses them for every property of those types, whether or not the property is annotated to use them.
+ */
+public class DateTimeModule extends SimpleModule {
+
+    public DateTimeModule() {
+        super(DateTimeModule.class.getSimpleName());
+        addSerializer(LocalDate.class, new LocalDateSerializer());
+        addDeserializer(LocalDate.class, new LocalDateDeserializer());
+        addSerializer(LocalDateTime.class, new LocalDateTimeSerializer());
+        addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer());
+        addSerializer(LocalTime.class, new LocalTimeSerializer());
+        addDeserializer(LocalTime.class, new LocalTimeDeserializer());
+    }
+}
@@ -0,0 +1,224 @@
+package se325.example12.parolee.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes and reads the ISO-8601 text of {@link LocalDate}s, {@link LocalTime}s and {@link LocalDateTime}s straight
+ * from and into their fields, giving exactly the same results as {@link DateTimeFormatter#ISO_LOCAL_DATE},
+ * {@link DateTimeFormatter#ISO_LOCAL_TIME} and {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME}.
+ * <p>
+ * The formatters are general-purpose: they format by appending field after field to a StringBuilder, and parse into a
+ * map of fields which is then resolved. Dates and times in JSON almost always have the same fixed shape, which only
+ * takes a few character operations to handle. The characters are written straight to the JsonGenerator and read
+ * straight from the JsonParser's buffer, so no String is created on the way. Anything else (years before 0000 or after
+ * 9999, text in another shape, or invalid values) is left to the formatters, so the errors are the same as ever.
+ */
+final class IsoDateTimes {
+
+    private static final int DATE_LENGTH = 10; // yyyy-MM-dd
+    private static final int TIME_LENGTH = 8; // HH:mm:ss
+    private static final int MAX_TIME_LENGTH = TIME_LENGTH + 10; // HH:mm:ss.nnnnnnnnn
+    private static final int MIN_DATE_TIME_LENGTH = DATE_LENGTH + 1 + TIME_LENGTH;
+    private static final int MAX_DATE_TIME_LENGTH = DATE_LENGTH + 1 + MAX_TIME_LENGTH;
+
+    private IsoDateTimes() {
+    }
+
+    static void writeDate(JsonGenerator generator, LocalDate date) throws IOException {
+        if (!isFourDigitYear(date.getYear())) {
+            generator.writeString(date.format(DateTimeFormatter.ISO_LOCAL_DATE));
+            return;
+        }
+        char[] buffer = new char[DATE_LENGTH];
+        formatDate(date, buffer, 0);
+        generator.writeString(buffer, 0, DATE_LENGTH);
+    }
+
+    static void writeTime(JsonGenerator generator, LocalTime time) throws IOException {
+        char[] buffer = new char[MAX_TIME_LENGTH];
+        int length = formatTime(time, buffer, 0);
+        generator.writeString(buffer, 0, length);
+    }
+
+    static void writeDateTime(JsonGenerator generator, LocalDateTime dateTime) throws IOException {
+        if (!isFourDigitYear(dateTime.getYear())) {
+            generator.writeString(dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+        char[] buffer = new char[MAX_DATE_TIME_LENGTH];
+        formatDate(dateTime.toLocalDate(), buffer, 0);
+        buffer[DATE_LENGTH] = 'T';
+        int length = formatTime(dateTime.toLocalTime(), buffer, DATE_LENGTH + 1);
+        generator.writeString(buffer, 0, length);
+    }
+
+    static LocalDate readDate(JsonParser parser) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING) && parser.getTextLength() == DATE_LENGTH) {
+            LocalDate date = parseDate(parser.getTextCharacters(), parser.getTextOffset());
+            if (date != null) {
+                return date;
+            }
+        }
+        return LocalDate.parse(parser.getText(), DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    static LocalTime readTime(JsonParser parser) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            int length = parser.getTextLength();
+            if (length >= TIME_LENGTH && length <= MAX_TIME_LENGTH) {
+                LocalTime time = parseTime(parser.getTextCharacters(), parser.getTextOffset(), length);
+                if (time != null) {
+                    return time;
+                }
+            }
+        }
+        return LocalTime.parse(parser.getText(), DateTimeFormatter.ISO_LOCAL_TIME);
+    }
+
+    static LocalDateTime readDateTime(JsonParser parser) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            int length = parser.getTextLength();
+            if (length >= MIN_DATE_TIME_LENGTH && length <= MAX_DATE_TIME_LENGTH) {
+                char[] text = parser.getTextCharacters();
+                int offset = parser.getTextOffset();
+                if (text[offset + DATE_LENGTH] == 'T') {
+                    LocalDate date = parseDate(text, offset);
+                    LocalTime time = parseTime(text, offset + DATE_LENGTH + 1, length - DATE_LENGTH - 1);
+                    if (date != null && time != null) {
+                        return LocalDateTime.of(date, time);
+                    }
+                }
+            }
+        }
+        return LocalDateTime.parse(parser.getText(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    private static boolean isFourDigitYear(int year) {
+        return year >= 0 && year <= 9999;
+    }
+
+    private static void formatDate(LocalDate date, char[] buffer, int offset) {
+        int year = date.getYear();
+        formatTwoDigits(year / 100, buffer, offset);
+        formatTwoDigits(year % 100, buffer, offset + 2);
+        buffer[offset + 4] = '-';
+        formatTwoDigits(date.getMonthValue(), buffer, offset + 5);
+        buffer[offset + 7] = '-';
+        formatTwoDigits(date.getDayOfMonth(), buffer, offset + 8);
+    }
+
+    /**
+     * Formats a time as HH:mm:ss, followed by as many digits of fractional seconds as it takes (none, if there are no
+     * nanoseconds), and returns the offset of the end.
+     */
+    private static int formatTime(LocalTime time, char[] buffer, int offset) {
+        formatTwoDigits(time.getHour(), buffer, offset);
+        buffer[offset + 2] = ':';
+        formatTwoDigits(time.getMinute(), buffer, offset + 3);
+        buffer[offset + 5] = ':';
+        formatTwoDigits(time.getSecond(), buffer, offset + 6);
+        int end = offset + TIME_LENGTH;
+
+        int nano = time.getNano();
+        if (nano == 0) {
+            return end;
+        }
+        buffer[end++] = '.';
+        int digits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            digits--;
+        }
+        for (int i = end + digits - 1; i >= end; i--) {
+            buffer[i] = (char) ('0' + nano % 10);
+            nano /= 10;
+        }
+        return end + digits;
+    }
+
+    private static void formatTwoDigits(int value, char[] buffer, int offset) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    /**
+     * Parses yyyy-MM-dd, or returns null if the text isn't in that shape or isn't a valid date.
+     */
+    private static LocalDate parseDate(char[] text, int offset) {
+        if (text[offset + 4] != '-' || text[offset + 7] != '-') {
+            return null;
+        }
+        int year = parseDigits(text, offset, 4);
+        int month = parseDigits(text, offset + 5, 2);
+        int day = parseDigits(text, offset + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses HH:mm:ss, optionally followed by 1 to 9 digits of fractional seconds, or returns null if the text isn't in
+     * that shape or isn't a valid time.
+     */
+    private static LocalTime parseTime(char[] text, int offset, int length) {
+        if (text[offset + 2] != ':' || text[offset + 5] != ':') {
+            return null;
+        }
+        int hour = parseDigits(text, offset, 2);
+        int minute = parseDigits(text, offset + 3, 2);
+        int second = parseDigits(text, offset + 6, 2);
+        if (hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+
+        int nano = 0;
+        if (length > TIME_LENGTH) {
+            int digits = length - TIME_LENGTH - 1;
+            if (text[offset + TIME_LENGTH] != '.' || digits == 0) {
+                return null;
+            }
+            nano = parseDigits(text, offset + TIME_LENGTH + 1, digits);
+            if (nano < 0) {
+                return null;
+            }
+            for (int i = digits; i < 9; i++) {
+                nano *= 10;
+            }
+        }
+
+        try {
+            return LocalTime.of(hour, minute, second, nano);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a run of decimal digits, or returns -1 if any of the characters isn't one.
+     */
+    private static int parseDigits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -6,12 +6,9 @@ import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 public class LocalDateSerializer extends StdSerializer<LocalDate> {
 
-    private static DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
-
     public LocalDateSerializer() {
         this(null);
     }
@@ -22,6 +19,6 @@ public class LocalDateSerializer extends StdSerializer<LocalDate> {
 
     @Override
     public void serialize(LocalDate localDate, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
-        jsonGenerator.writeString(localDate.format(FORMATTER));
+        IsoDateTimes.writeDate(jsonGenerator, localDate);
     }
 }
@@ -0,0 +1,140 @@
+package se325.example12.parolee.services;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.jaxrs.cfg.EndpointConfigBase;
+import com.fasterxml.jackson.jaxrs.cfg.ObjectWriterModifier;
+import se325.example12.parolee.dto.ParoleeDTO;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.NameBinding;
+import javax.ws.rs.core.MultivaluedMap;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A sparse projection of ParoleeDTOs: the subset of their properties which a client asked for with the "fields" query
+ * parameter, e.g. <code>?fields=id,lastName,lastKnownPosition</code>.
+ * <p>
+ * The projection is applied by Jackson as it writes each ParoleeDTO, using a property filter, so the unrequested
+ * properties' getters are never even called. Each different set of fields gets its own filter and
+ * {@link ObjectWriter}, which are built once and then cached; as there are only a handful of properties, there can
+ * only be a limited number of different sets. Resource methods can also ask the projection whether a property was
+ * requested, so that they don't bother working out the values of properties which won't be written.
+ * <p>
+ * Resource methods whose entities should be written with the projection are annotated with {@link Projected}, which
+ * binds them to the {@link FieldProjectionInterceptor}.
+ * <p>
+ * Requests without a "fields" parameter get {@link #ALL}, and are written by the JAX-RS run-time's Jackson provider
+ * exactly as before.
+ */
+public class FieldProjection {
+
+    /**
+     * The projection which includes every property.
+     */
+    public static final FieldProjection ALL = new FieldProjection(null);
+
+    private static final String FILTER_ID = "paroleeFields";
+
+    private static final Set<String> PROPERTIES = Set.of(
+            "id", "lastName", "firstName", "gender", "dateOfBirth", "homeAddress", "lastKnownPosition");
+
+    /**
+     * Configured like the provider's mapper, but applies the filter to ParoleeDTOs (but not the objects inside them,
+     * like their address) without annotating the ParoleeDTO class itself. Clients share that class, and their own
+     * ObjectMappers don't know about the filter.
+     */
+    private static final ObjectMapper MAPPER = ObjectMapperResolver.createObjectMapper()
+            .addMixIn(ParoleeDTO.class, Filtered.class);
+
+    private static final ConcurrentMap<Set<String>, FieldProjection> CACHE = new ConcurrentHashMap<>();
+
+    @JsonFilter(FILTER_ID)
+    private interface Filtered {
+    }
+
+    /**
+     * Marks the resource methods whose entities are written with the projection named by their "fields" query
+     * parameter.
+     */
+    @NameBinding
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.TYPE, ElementType.METHOD})
+    public @interface Projected {
+    }
+
+    private final Set<String> fields;
+    private final ObjectWriterModifier modifier;
+
+    private FieldProjection(Set<String> fields) {
+        this.fields = fields;
+        if (fields == null) {
+            this.modifier = null;
+        } else {
+            ObjectWriter writer = MAPPER.writer(new SimpleFilterProvider()
+                    .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+            this.modifier = new ObjectWriterModifier() {
+                @Override
+                public ObjectWriter modify(EndpointConfigBase<?> endpoint, MultivaluedMap<String, Object> responseHeaders,
+                                           Object valueToWrite, ObjectWriter w, JsonGenerator g) {
+                    return writer;
+                }
+            };
+        }
+    }
+
+    /**
+     * Gets the projection for the value of a "fields" query parameter: a comma-separated list of ParoleeDTO property
+     * names.
+     *
+     * @param fields the requested fields, or null to include every property.
+     * @throws BadRequestException if a requested field isn't a ParoleeDTO property.
+     */
+    public static FieldProjection of(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+
+        SortedSet<String> names = new TreeSet<>();
+        for (String name : fields.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!PROPERTIES.contains(name)) {
+                throw new BadRequestException("Unknown field: " + name);
+            }
+            names.add(name);
+        }
+
+        return CACHE.computeIfAbsent(names, key -> new FieldProjection(Collections.unmodifiableSet(key)));
+    }
+
+    /**
+     * Checks whether a ParoleeDTO property is part of this projection.
+     */
+    public boolean includes(String property) {
+        return fields == null || fields.contains(property);
+    }
+
+    /**
+     * Gets the modifier which makes the Jackson provider write with this projection, or null if it includes every
+     * property and the provider's own writer will do.
+     */
+    ObjectWriterModifier modifier() {
+        return modifier;
+    }
+}
@@ -1,5 +1,9 @@
 package se325.example12.parolee.services;
 
+import se325.example12.parolee.domain.Conviction;
+import se325.example12.parolee.domain.Movement;
+import se325.example12.parolee.dto.ParoleeDTO;
+
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 
@@ -11,6 +15,19 @@ import java.util.Set;
  */
 @ApplicationPath("/services")
 public class ParoleeApplication extends Application {
+
+    /**
+     * Response bodies bigger than this many bytes are compressed, for clients
+     * which accept compressed responses.
+     */
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * Compressed request bodies which decompress to more than this many bytes
+     * are rejected.
+     */
+    private static final long MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
     private Set<Object> singletons = new HashSet<>();
     private Set<Class<?>> classes = new HashSet<>();
 
@@ -18,6 +35,9 @@ public class ParoleeApplication extends Application {
         singletons.add(PersistenceManager.instance());
         classes.add(ParoleeResource.class);
         classes.add(TestResource.class);
+        singletons.add(new CompressionInterceptor(COMPRESSION_THRESHOLD, MAX_REQUEST_SIZE));
+        singletons.add(new FieldProjectionInterceptor());
+        singletons.add(new ObjectMapperResolver(ParoleeDTO.class, Movement.class, Conviction.class));
 
         new TestResource().reloadDatabase();
     }
@@ -1,6 +1,7 @@
 package se325.asyncchat.services;
 
 import org.slf4j.LoggerFactory;
+import se325.asyncchat.domain.Message;
 
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
@@ -17,6 +18,7 @@ public class ChatApplication extends Application {
 
     public ChatApplication() {
         this.singletons.add(new ChatResource());
+        this.singletons.add(new ObjectMapperResolver(Message.class));
 
         LoggerFactory.getLogger(ChatApplication.class).warn("ChatApplication running!!");
 
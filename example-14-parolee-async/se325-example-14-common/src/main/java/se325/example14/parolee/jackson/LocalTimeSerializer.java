@@ -6,12 +6,9 @@ import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 
 import java.io.IOException;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 
 public class LocalTimeSerializer extends StdSerializer<LocalTime> {
 
-    private static DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_TIME;
-
     public LocalTimeSerializer() {
         this(null);
     }
@@ -22,6 +19,6 @@ public class LocalTimeSerializer extends StdSerializer<LocalTime> {
 
     @Override
     public void serialize(LocalTime localDate, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
-        jsonGenerator.writeString(localDate.format(FORMATTER));
+        IsoDateTimes.writeTime(jsonGenerator, localDate);
     }
 }
@@ -3,17 +3,41 @@ package se325.example14.parolee.domain.mappers;
 import se325.example14.parolee.domain.Parolee;
 import se325.example14.parolee.dto.ParoleeDTO;
 
+import java.util.function.Predicate;
+
 public class ParoleeMapper {
 
     public static ParoleeDTO toDTO(Parolee domain) {
+        return toDTO(domain, property -> true);
+    }
+
+    /**
+     * Maps only some of a Parolee's properties: those whose names are accepted by the given predicate. The others are
+     * left null, without ever being looked up or mapped.
+     */
+    public static ParoleeDTO toDTO(Parolee domain, Predicate<String> includes) {
         ParoleeDTO dtoParolee = new ParoleeDTO();
-        dtoParolee.setId(domain.getId());
-        dtoParolee.setDateOfBirth(domain.getDateOfBirth());
-        dtoParolee.setGender(domain.getGender());
-        dtoParolee.setFirstName(domain.getFirstName());
-        dtoParolee.setLastName(domain.getLastName());
-        dtoParolee.setHomeAddress(AddressMapper.toDTO(domain.getHomeAddress()));
-        dtoParolee.setLastKnownPosition(MovementMapper.toDTO(domain.getLastKnownPosition()));
+        if (includes.test("id")) {
+            dtoParolee.setId(domain.getId());
+        }
+        if (includes.test("dateOfBirth")) {
+            dtoParolee.setDateOfBirth(domain.getDateOfBirth());
+        }
+        if (includes.test("gender")) {
+            dtoParolee.setGender(domain.getGender());
+        }
+        if (includes.test("firstName")) {
+            dtoParolee.setFirstName(domain.getFirstName());
+        }
+        if (includes.test("lastName")) {
+            dtoParolee.setLastName(domain.getLastName());
+        }
+        if (includes.test("homeAddress")) {
+            dtoParolee.setHomeAddress(AddressMapper.toDTO(domain.getHomeAddress()));
+        }
+        if (includes.test("lastKnownPosition")) {
+            dtoParolee.setLastKnownPosition(MovementMapper.toDTO(domain.getLastKnownPosition()));
+        }
 
         return dtoParolee;
     }
@@ -0,0 +1,325 @@
+package se325.example14.parolee.services;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.ZipException;
+
+/**
+ * Compresses response bodies, and decompresses request bodies, using the "gzip" and "deflate" HTTP content codings.
+ * <p>
+ * A response is only compressed if the client says (in its Accept-Encoding header) that it can decompress it, and if
+ * it's bigger than a threshold: compressing a small body saves few bytes, and can even make it bigger. As the size of
+ * a body usually isn't known until it has been written, the first bytes of each body are held back until either the
+ * threshold is passed, in which case the Content-Encoding header is set and everything is compressed from then on, or
+ * the body ends, in which case it's sent as it is.
+ * <p>
+ * A request body with a Content-Encoding header is decompressed before being read, so resource methods never know it
+ * was compressed at all. A small compressed body can decompress to a huge one, so there's a limit on how big the
+ * decompressed body can get, beyond which a 413 (Payload Too Large) response is returned instead.
+ * <p>
+ * The compression itself is done by {@link CompressionStreams}, which reuses its Deflaters and Inflaters.
+ */
+public class CompressionInterceptor implements ReaderInterceptor, WriterInterceptor {
+
+    private static final String GZIP = "gzip";
+    private static final String X_GZIP = "x-gzip";
+    private static final String DEFLATE = "deflate";
+    private static final String IDENTITY = "identity";
+
+    private final int threshold;
+    private final long maxRequestSize;
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    /**
+     * @param threshold      the size, in bytes, a response body must be bigger than to be compressed.
+     * @param maxRequestSize the most bytes a compressed request body may decompress to.
+     */
+    public CompressionInterceptor(int threshold, long maxRequestSize) {
+        this.threshold = threshold;
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        String encoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.trim().equalsIgnoreCase(IDENTITY)) {
+            return context.proceed();
+        }
+
+        InputStream in;
+        try {
+            switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+                case GZIP:
+                case X_GZIP:
+                    in = CompressionStreams.gunzip(context.getInputStream());
+                    break;
+                case DEFLATE:
+                    in = CompressionStreams.inflate(context.getInputStream());
+                    break;
+                default:
+                    // The request body's encoding isn't one we understand.
+                    throw new WebApplicationException(Response.Status.UNSUPPORTED_MEDIA_TYPE);
+            }
+        } catch (ZipException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
+
+        context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+        context.setInputStream(new LimitedInputStream(in, maxRequestSize));
+        try {
+            return context.proceed();
+        } catch (RequestTooLargeException e) {
+            throw new WebApplicationException(e, Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+
+        // Whether or not this response is compressed depends on the request's Accept-Encoding header, so caches mustn't
+        // give it to clients which sent a different one.
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        String coding = negotiate(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        Object length = headers.getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (coding == null || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || (length != null && Long.parseLong(length.toString()) <= threshold)) {
+            context.proceed();
+            return;
+        }
+
+        ThresholdOutputStream out = new ThresholdOutputStream(context.getOutputStream(), headers, coding);
+        context.setOutputStream(out);
+        try {
+            context.proceed();
+        } catch (IOException | RuntimeException e) {
+            out.abandon();
+            throw e;
+        }
+        out.close();
+    }
+
+    /**
+     * Picks the content coding to compress a response with, given the request's Accept-Encoding header: gzip if the
+     * client accepts it, otherwise deflate if the client accepts that, otherwise none (null).
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+
+        boolean gzip = false;
+        boolean gzipRefused = false;
+        boolean deflate = false;
+        boolean any = false;
+
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = isAccepted(parts);
+
+            switch (coding) {
+                case GZIP:
+                case X_GZIP:
+                    gzip |= accepted;
+                    gzipRefused |= !accepted;
+                    break;
+                case DEFLATE:
+                    deflate |= accepted;
+                    break;
+                case "*":
+                    any |= accepted;
+                    break;
+                default:
+            }
+        }
+
+        if (gzip || (any && !gzipRefused)) {
+            return GZIP;
+        }
+        return deflate ? DEFLATE : null;
+    }
+
+    /**
+     * An Accept-Encoding element is accepted unless its quality value ("q") is 0.
+     */
+    private static boolean isAccepted(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Holds back a response body until it's bigger than the threshold, and then compresses it.
+     */
+    private class ThresholdOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final MultivaluedMap<String, Object> headers;
+        private final String coding;
+
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream compressed;
+        private boolean closed;
+
+        ThresholdOutputStream(OutputStream out, MultivaluedMap<String, Object> headers, String coding) {
+            this.out = out;
+            this.headers = headers;
+            this.coding = coding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressed == null) {
+                if (buffer.size() + len <= threshold) {
+                    buffer.write(b, off, len);
+                    return;
+                }
+                startCompressing();
+            }
+            compressed.write(b, off, len);
+        }
+
+        /**
+         * Nothing is flushed while the body is still being held back, as that would send the headers before we know
+         * whether to compress it.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (compressed != null) {
+                compressed.flush();
+            }
+        }
+
+        /**
+         * Finishes the body: sends it as it is if it never got past the threshold, or finishes compressing it.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (compressed == null) {
+                buffer.writeTo(out);
+                out.flush();
+            } else {
+                compressed.close();
+            }
+        }
+
+        /**
+         * Gives up on a body which couldn't be written in full. Anything held back is thrown away, so that an error
+         * response can be sent instead. If compression had already started, the response has already been committed,
+         * so the compressed stream's Deflater is just released, without finishing the compressed data: a client then
+         * sees a truncated body rather than a valid but incomplete one.
+         */
+        void abandon() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer = null;
+            if (compressed != null) {
+                CompressionStreams.abandon(compressed);
+            }
+        }
+
+        /**
+         * Sets the headers for a compressed body (they haven't been sent yet, as nothing has been written to the
+         * underlying stream), and compresses everything held back so far.
+         */
+        private void startCompressing() throws IOException {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, coding);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            compressed = coding.equals(GZIP) ? CompressionStreams.gzip(out) : CompressionStreams.deflate(out);
+            buffer.writeTo(compressed);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Stops reading a decompressed request body once it gets bigger than a limit.
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws RequestTooLargeException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new RequestTooLargeException();
+            }
+        }
+    }
+
+    /**
+     * Thrown when a decompressed request body gets too big. It's an IOException, rather than being the
+     * WebApplicationException it's turned into, so that it reaches {@link #aroundReadFrom} through the message body
+     * reader unwrapped.
+     */
+    private static class RequestTooLargeException extends IOException {
+        RequestTooLargeException() {
+            super("Decompressed request body is too large");
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package se325.example14.parolee.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Compressing and decompressing streams for the "gzip" and "deflate" HTTP content codings, whose {@link Deflater}s
+ * and {@link Inflater}s are borrowed from a pool rather than created for every request.
+ * <p>
+ * A Deflater or Inflater holds native zlib memory (a Deflater's is a few hundred KB), which is only freed when it's
+ * ended or garbage collected, so creating one per request is much more expensive than it looks. The JDK's own
+ * {@link java.util.zip.GZIPOutputStream} and {@link java.util.zip.GZIPInputStream} always create their own, so the gzip
+ * header and trailer are written and checked here instead. Closing a stream returns its Deflater or Inflater to the
+ * pool, but leaves the underlying stream open, as that belongs to the JAX-RS run-time. A compressing stream which
+ * can't be written in full can be {@linkplain #abandon(OutputStream) abandoned} instead of closed.
+ */
+public final class CompressionStreams {
+
+    private static final int POOL_SIZE = 32;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final byte[] GZIP_HEADER = {
+            (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    // gzip wraps raw deflate data in its own header and trailer, while "deflate" is deflate data in zlib's wrapper.
+    private static final Pool<Deflater> GZIP_DEFLATERS = new Pool<>(
+            () -> new Deflater(Deflater.DEFAULT_COMPRESSION, true), Deflater::reset, Deflater::end);
+    private static final Pool<Deflater> ZLIB_DEFLATERS = new Pool<>(
+            () -> new Deflater(Deflater.DEFAULT_COMPRESSION, false), Deflater::reset, Deflater::end);
+    private static final Pool<Inflater> GZIP_INFLATERS = new Pool<>(
+            () -> new Inflater(true), Inflater::reset, Inflater::end);
+    private static final Pool<Inflater> ZLIB_INFLATERS = new Pool<>(
+            () -> new Inflater(false), Inflater::reset, Inflater::end);
+
+    private CompressionStreams() {
+    }
+
+    /**
+     * Creates a stream which gzip-compresses everything written to it, and writes it to the given stream.
+     */
+    public static OutputStream gzip(OutputStream out) throws IOException {
+        return new PooledDeflaterOutputStream(out, GZIP_DEFLATERS, true);
+    }
+
+    /**
+     * Creates a stream which compresses everything written to it with zlib (the "deflate" coding), and writes it to
+     * the given stream.
+     */
+    public static OutputStream deflate(OutputStream out) throws IOException {
+        return new PooledDeflaterOutputStream(out, ZLIB_DEFLATERS, false);
+    }
+
+    /**
+     * Gives up on a stream created by {@link #gzip} or {@link #deflate}, returning its Deflater to the pool without
+     * finishing the compressed data. Unlike closing the stream, this doesn't write the end of the deflate data or the
+     * gzip trailer, so a client can tell that what it received is truncated. The underlying stream is left open.
+     */
+    public static void abandon(OutputStream compressed) {
+        ((PooledDeflaterOutputStream) compressed).abandon();
+    }
+
+    /**
+     * Creates a stream which decompresses the gzip-compressed data read from the given stream.
+     *
+     * @throws ZipException if the given stream doesn't start with a gzip header.
+     */
+    public static InputStream gunzip(InputStream in) throws IOException {
+        return new PooledInflaterInputStream(in, GZIP_INFLATERS, true);
+    }
+
+    /**
+     * Creates a stream which decompresses the zlib-compressed (the "deflate" coding) data read from the given stream.
+     */
+    public static InputStream inflate(InputStream in) throws IOException {
+        return new PooledInflaterInputStream(in, ZLIB_INFLATERS, false);
+    }
+
+    /**
+     * A bounded pool of reusable objects. If the pool is empty, a new object is created; if it's full when an object is
+     * returned, that object is destroyed instead.
+     */
+    private static final class Pool<T> {
+        private final BlockingQueue<T> idle = new ArrayBlockingQueue<>(POOL_SIZE);
+        private final Supplier<T> factory;
+        private final Consumer<T> reset;
+        private final Consumer<T> destroy;
+
+        Pool(Supplier<T> factory, Consumer<T> reset, Consumer<T> destroy) {
+            this.factory = factory;
+            this.reset = reset;
+            this.destroy = destroy;
+        }
+
+        T borrow() {
+            T t = idle.poll();
+            return t == null ? factory.get() : t;
+        }
+
+        void release(T t) {
+            reset.accept(t);
+            if (!idle.offer(t)) {
+                destroy.accept(t);
+            }
+        }
+    }
+
+    private static final class PooledDeflaterOutputStream extends DeflaterOutputStream {
+        private final Pool<Deflater> pool;
+        private final CRC32 crc;
+        private boolean closed;
+
+        PooledDeflaterOutputStream(OutputStream out, Pool<Deflater> pool, boolean gzip) throws IOException {
+            super(out, pool.borrow(), BUFFER_SIZE);
+            this.pool = pool;
+            this.crc = gzip ? new CRC32() : null;
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (def.finished()) {
+                return;
+            }
+            super.finish();
+            if (crc != null) {
+                writeInt((int) crc.getValue());
+                writeInt(def.getTotalIn());
+            }
+        }
+
+        /**
+         * Finishes compressing and returns the Deflater to the pool, without closing the underlying stream.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                finish();
+                out.flush();
+            } finally {
+                pool.release(def);
+            }
+        }
+
+        /**
+         * Returns the Deflater to the pool, without finishing compressing or flushing anything.
+         */
+        void abandon() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pool.release(def);
+        }
+
+        private void writeInt(int i) throws IOException {
+            out.write(i);
+            out.write(i >> 8);
+            out.write(i >> 16);
+            out.write(i >> 24);
+        }
+    }
+
+    private static final class PooledInflaterInputStream extends InflaterInputStream {
+        private final Pool<Inflater> pool;
+        private final CRC32 crc;
+        private boolean trailerChecked;
+        private boolean closed;
+
+        PooledInflaterInputStream(InputStream in, Pool<Inflater> pool, boolean gzip) throws IOException {
+            super(in, pool.borrow(), BUFFER_SIZE);
+            this.pool = pool;
+            this.crc = gzip ? new CRC32() : null;
+            if (gzip) {
+                try {
+                    readHeader(in);
+                } catch (IOException e) {
+                    close();
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            // Once the Inflater is back in the pool, another stream may be using it.
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            int n = super.read(b, off, len);
+            if (crc != null) {
+                if (n > 0) {
+                    crc.update(b, off, n);
+                } else if (n == -1 && !trailerChecked) {
+                    readTrailer();
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            return super.available();
+        }
+
+        /**
+         * Returns the Inflater to the pool, without closing the underlying stream.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                pool.release(inf);
+            }
+        }
+
+        private void readHeader(InputStream in) throws IOException {
+            DataInputStream header = new DataInputStream(in);
+            if (Short.reverseBytes(header.readShort()) != (short) GZIP_MAGIC) {
+                throw new ZipException("Not in gzip format");
+            }
+            if (header.readUnsignedByte() != Deflater.DEFLATED) {
+                throw new ZipException("Unsupported compression method");
+            }
+            int flags = header.readUnsignedByte();
+            skip(header, 6);
+            if ((flags & FEXTRA) != 0) {
+                skip(header, Short.toUnsignedInt(Short.reverseBytes(header.readShort())));
+            }
+            if ((flags & FNAME) != 0) {
+                skipString(header);
+            }
+            if ((flags & FCOMMENT) != 0) {
+                skipString(header);
+            }
+            if ((flags & FHCRC) != 0) {
+                skip(header, 2);
+            }
+        }
+
+        private static void skip(DataInputStream in, int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                in.readUnsignedByte();
+            }
+        }
+
+        private static void skipString(DataInputStream in) throws IOException {
+            while (in.readUnsignedByte() != 0) {
+                // Skip up to and including the terminating zero byte.
+            }
+        }
+
+        /**
+         * Checks the CRC and length in the gzip trailer. Some of the trailer may already have been read into the
+         * buffer, past the end of the compressed data.
+         */
+        private void readTrailer() throws IOException {
+            trailerChecked = true;
+            int remaining = inf.getRemaining();
+            InputStream rest = remaining > 0
+                    ? new SequenceInputStream(new ByteArrayInputStream(buf, len - remaining, remaining), in)
+                    : in;
+            DataInputStream trailer = new DataInputStream(rest);
+            try {
+                if (Integer.reverseBytes(trailer.readInt()) != (int) crc.getValue()
+                        || Integer.reverseBytes(trailer.readInt()) != (int) inf.getBytesWritten()) {
+                    throw new ZipException("Corrupt gzip trailer");
+                }
+            } catch (EOFException e) {
+                throw new ZipException("Truncated gzip trailer");
+            }
+        }
+    }
+}
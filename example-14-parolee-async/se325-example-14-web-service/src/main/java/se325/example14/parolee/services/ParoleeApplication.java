@@ -1,5 +1,10 @@
 package se325.example14.parolee.services;
 
+import se325.example14.parolee.dto.ConvictionDTO;
+import se325.example14.parolee.dto.MovementDTO;
+import se325.example14.parolee.dto.ParoleViolationDTO;
+import se325.example14.parolee.dto.ParoleeDTO;
+
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 import java.util.HashSet;
@@ -10,6 +15,19 @@ import java.util.Set;
  */
 @ApplicationPath("/services")
 public class ParoleeApplication extends Application {
+
+    /**
+     * Response bodies bigger than this many bytes are compressed, for clients
+     * which accept compressed responses.
+     */
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * Compressed request bodies which decompress to more than this many bytes
+     * are rejected.
+     */
+    private static final long MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
     private final Set<Object> singletons = new HashSet<>();
     private final Set<Class<?>> classes = new HashSet<>();
 
@@ -18,6 +36,10 @@ public class ParoleeApplication extends Application {
         singletons.add(SubscriptionManager.instance());
         classes.add(ParoleeResource.class);
         classes.add(TestResource.class);
+        singletons.add(new CompressionInterceptor(COMPRESSION_THRESHOLD, MAX_REQUEST_SIZE));
+        singletons.add(new FieldProjectionInterceptor());
+        singletons.add(new ObjectMapperResolver(
+                ParoleeDTO.class, MovementDTO.class, ConvictionDTO.class, ParoleViolationDTO.class));
     }
 
     @Override
@@ -1,6 +1,10 @@
 package se325.example16.parolee.jackson.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import se325.example16.parolee.jackson.DateTimeModule;
 
 import javax.websocket.Decoder;
 import javax.websocket.Encoder;
@@ -26,9 +30,15 @@ public abstract class JSONCoder<T>
     private Class<T> _type;
 
     /**
-     * One ObjectMapper per thread, as it's not threadsafe.
+     * One ObjectMapper for every coder. Once it's configured, an ObjectMapper is thread-safe, and sharing one means its
+     * serializers and deserializers are only looked up and cached once, rather than once per thread.
      */
-    private final ThreadLocal<ObjectMapper> _mapper = ThreadLocal.withInitial(ObjectMapper::new);
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new DateTimeModule())
+            .build();
+
+    private ObjectReader _reader;
+    private ObjectWriter _writer;
 
 
     @Override
@@ -42,16 +52,18 @@ public abstract class JSONCoder<T>
         } else if ($T instanceof ParameterizedType) {
             _type = (Class<T>) ((ParameterizedType) $T).getRawType();
         }
+        _reader = MAPPER.readerFor(_type);
+        _writer = MAPPER.writerFor(_type);
     }
 
     @Override
     public void encode(T object, Writer writer) throws IOException {
-        _mapper.get().writeValue(writer, object);
+        _writer.writeValue(writer, object);
     }
 
     @Override
     public T decode(Reader reader) throws IOException {
-        return _mapper.get().readValue(reader, _type);
+        return _reader.readValue(reader);
     }
 
     @Override
@@ -0,0 +1,43 @@
+package se325.example16.parolee.services;
+
+import com.fasterxml.jackson.jaxrs.cfg.ObjectWriterInjector;
+import com.fasterxml.jackson.jaxrs.cfg.ObjectWriterModifier;
+
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * Writes the entities returned by {@link FieldProjection.Projected} resource methods with the {@link FieldProjection}
+ * named by the request's "fields" query parameter.
+ * <p>
+ * The Jackson provider only picks up an {@link ObjectWriterModifier} from a thread-local variable, which it clears
+ * when it writes. Setting it from a resource method would leave it behind for whichever response the thread writes
+ * next if this one were never written by the provider, e.g. because something failed after the method set it. So it's
+ * set here instead, just for the duration of the write, and cleared afterwards whatever happens.
+ */
+@FieldProjection.Projected
+public class FieldProjectionInterceptor implements WriterInterceptor {
+
+    @Context
+    private UriInfo uriInfo;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        // The resource method has already checked the fields when it got the projection, which is cached.
+        ObjectWriterModifier modifier = FieldProjection.of(uriInfo.getQueryParameters().getFirst("fields")).modifier();
+        if (modifier == null) {
+            context.proceed();
+            return;
+        }
+
+        ObjectWriterInjector.set(modifier);
+        try {
+            context.proceed();
+        } finally {
+            ObjectWriterInjector.getAndClear();
+        }
+    }
+}
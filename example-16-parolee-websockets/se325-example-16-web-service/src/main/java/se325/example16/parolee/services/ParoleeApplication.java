@@ -1,5 +1,9 @@
 package se325.example16.parolee.services;
 
+import se325.example16.parolee.dto.ConvictionDTO;
+import se325.example16.parolee.dto.MovementDTO;
+import se325.example16.parolee.dto.ParoleViolationDTO;
+import se325.example16.parolee.dto.ParoleeDTO;
 import se325.example16.parolee.services.websockets.ParoleeMovementSubscriptionManager;
 
 import javax.ws.rs.ApplicationPath;
@@ -12,6 +16,19 @@ import java.util.Set;
  */
 @ApplicationPath("/services")
 public class ParoleeApplication extends Application {
+
+    /**
+     * Response bodies bigger than this many bytes are compressed, for clients
+     * which accept compressed responses.
+     */
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * Compressed request bodies which decompress to more than this many bytes
+     * are rejected.
+     */
+    private static final long MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
     private final Set<Object> singletons = new HashSet<>();
     private final Set<Class<?>> classes = new HashSet<>();
 
@@ -22,6 +39,10 @@ public class ParoleeApplication extends Application {
 
         classes.add(ParoleeResource.class);
         classes.add(TestResource.class);
+        singletons.add(new CompressionInterceptor(COMPRESSION_THRESHOLD, MAX_REQUEST_SIZE));
+        singletons.add(new FieldProjectionInterceptor());
+        singletons.add(new ObjectMapperResolver(
+                ParoleeDTO.class, MovementDTO.class, ConvictionDTO.class, ParoleViolationDTO.class));
     }
 
     @Override
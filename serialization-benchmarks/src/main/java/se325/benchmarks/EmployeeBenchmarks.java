@@ -0,0 +1,102 @@
+package se325.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se325.example01.employees.CompactEmployeeInput;
+import se325.example01.employees.CompactEmployeeOutput;
+import se325.example01.employees.Employee;
+import se325.example01.employees.Manager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Example 02's employees, sent with Java serialization and with the hand-written compact codec. Each message is
+ * written with a fresh stream, as the employees server does for each connection. Sending one employee also sends their
+ * manager and the rest of their team, so the team size is a parameter.
+ * <p>
+ * Jackson isn't included: example 02's employees and their managers refer to each other, and they have no no-argument
+ * constructors, so Jackson can't handle them without changes to the classes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class EmployeeBenchmarks {
+
+    @Param({"2", "50"})
+    private int teamSize;
+
+    private Employee employee;
+    private byte[] serialized;
+    private byte[] compact;
+
+    @Setup
+    public void setUp() throws IOException {
+        employee = createEmployee(teamSize);
+        serialized = serialize(employee);
+        compact = encodeCompact(employee);
+    }
+
+    @Benchmark
+    public byte[] javaSerializationEncode() throws IOException {
+        return serialize(employee);
+    }
+
+    @Benchmark
+    public Object javaSerializationDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] compactEncode() throws IOException {
+        return encodeCompact(employee);
+    }
+
+    @Benchmark
+    public Employee compactDecode() throws IOException {
+        return new CompactEmployeeInput(new ByteArrayInputStream(compact)).readEmployee();
+    }
+
+    /**
+     * Creates an employee whose manager is responsible for <code>teamSize</code> employees in total.
+     */
+    static Employee createEmployee(int teamSize) {
+        Manager mgr = new Manager("David", "8653899");
+        for (int i = 0; i < teamSize; i++) {
+            new Employee("Employee " + i, String.format("%07d", i), mgr);
+        }
+        return mgr.getResponsibleFor().get(0);
+    }
+
+    static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeCompact(Employee employee) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new CompactEmployeeOutput(bytes).writeEmployee(employee);
+        return bytes.toByteArray();
+    }
+}
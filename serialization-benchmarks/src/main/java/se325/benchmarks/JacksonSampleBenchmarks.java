@@ -0,0 +1,111 @@
+package se325.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se325.example06.jacksonsamples.example01_basic.Book;
+import se325.example06.jacksonsamples.example01_basic.Genre;
+import se325.example06.jacksonsamples.example06_references.Employee;
+import se325.example06.jacksonsamples.example06_references.Teams;
+import se325.example06.jacksonsamples.example07_polymorphism.Cat;
+import se325.example06.jacksonsamples.example07_polymorphism.Dog;
+import se325.example06.jacksonsamples.example07_polymorphism.Zoo;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Some of example 06's Jackson samples: a simple bean ({@link Book}), a list of polymorphic objects, which have to be
+ * written with their class names ({@link Zoo}), and a map of lists of objects which refer to each other by id
+ * ({@link Teams}). These classes aren't <code>Serializable</code>, so they're only sent as JSON.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JacksonSampleBenchmarks {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Book book;
+    private Zoo zoo;
+    private Teams teams;
+    private byte[] bookJson;
+    private byte[] zooJson;
+    private byte[] teamsJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        book = createBook();
+        zoo = createZoo();
+        teams = createTeams();
+        bookJson = mapper.writeValueAsBytes(book);
+        zooJson = mapper.writeValueAsBytes(zoo);
+        teamsJson = mapper.writeValueAsBytes(teams);
+    }
+
+    @Benchmark
+    public byte[] bookEncode() throws IOException {
+        return mapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public Book bookDecode() throws IOException {
+        return mapper.readValue(bookJson, Book.class);
+    }
+
+    @Benchmark
+    public byte[] zooEncode() throws IOException {
+        return mapper.writeValueAsBytes(zoo);
+    }
+
+    @Benchmark
+    public Zoo zooDecode() throws IOException {
+        return mapper.readValue(zooJson, Zoo.class);
+    }
+
+    @Benchmark
+    public byte[] teamsEncode() throws IOException {
+        return mapper.writeValueAsBytes(teams);
+    }
+
+    @Benchmark
+    public Teams teamsDecode() throws IOException {
+        return mapper.readValue(teamsJson, Teams.class);
+    }
+
+    static Book createBook() {
+        return new Book("The Neverending Story", Genre.Fantasy);
+    }
+
+    static Zoo createZoo() {
+        Zoo zoo = new Zoo();
+        zoo.add(new Cat("Mufasa"));
+        zoo.add(new Dog("Lassie"));
+        return zoo;
+    }
+
+    /** The same teams as <code>Example06Main</code>: Bob is in both, but is only written out in full once. */
+    static Teams createTeams() {
+        Employee alice = new Employee(1, "Alice");
+        Employee bob = new Employee(2, "Bob");
+        Employee caitlin = new Employee(3, "Caitlin");
+        Employee dave = new Employee(4, "Dave");
+
+        Teams teams = new Teams();
+        teams.getTeams().put("Project 1", Arrays.asList(alice, bob));
+        teams.getTeams().put("Project 2", Arrays.asList(bob, caitlin, dave));
+        return teams;
+    }
+}
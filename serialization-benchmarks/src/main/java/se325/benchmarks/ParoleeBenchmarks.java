@@ -0,0 +1,118 @@
+package se325.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se325.example07.parolee.services.ParoleeBinaryReaderAndWriter;
+import se325.example07.parolee.services.SerializationMessageBodyReaderAndWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same parolee, sent the two ways example 07 can send it (Java serialization, through its
+ * {@link SerializationMessageBodyReaderAndWriter}, and its compact binary format, through its
+ * {@link ParoleeBinaryReaderAndWriter}) and the way example 08 sends it (JSON, through Jackson). The message body
+ * readers and writers are called directly, so the time JAX-RS itself takes isn't included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ParoleeBenchmarks {
+
+    private final SerializationMessageBodyReaderAndWriter serialization = new SerializationMessageBodyReaderAndWriter();
+    private final ParoleeBinaryReaderAndWriter binary = new ParoleeBinaryReaderAndWriter();
+
+    /** ObjectMappers are thread-safe and expensive to create, so (like a JAX-RS provider) we share one. */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private se325.example07.parolee.domain.Parolee serializationParolee;
+    private se325.example08.parolee.domain.Parolee jsonParolee;
+    private byte[] serialized;
+    private byte[] binaryEncoded;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        serializationParolee = createSerializationParolee();
+        jsonParolee = createJsonParolee();
+        serialized = writeSerialized(serialization, serializationParolee);
+        binaryEncoded = writeBinary(binary, serializationParolee);
+        json = mapper.writeValueAsBytes(jsonParolee);
+    }
+
+    @Benchmark
+    public byte[] javaSerializationEncode() throws IOException {
+        return writeSerialized(serialization, serializationParolee);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Serializable javaSerializationDecode() {
+        return serialization.readFrom((Class) se325.example07.parolee.domain.Parolee.class, null, null,
+                SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT_TYPE, null,
+                new ByteArrayInputStream(serialized));
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() throws IOException {
+        return writeBinary(binary, serializationParolee);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object binaryDecode() throws IOException {
+        return binary.readFrom((Class) se325.example07.parolee.domain.Parolee.class, null, null,
+                ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY_TYPE, null,
+                new ByteArrayInputStream(binaryEncoded));
+    }
+
+    @Benchmark
+    public byte[] jacksonEncode() throws IOException {
+        return mapper.writeValueAsBytes(jsonParolee);
+    }
+
+    @Benchmark
+    public se325.example08.parolee.domain.Parolee jacksonDecode() throws IOException {
+        return mapper.readValue(json, se325.example08.parolee.domain.Parolee.class);
+    }
+
+    static se325.example07.parolee.domain.Parolee createSerializationParolee() {
+        return new se325.example07.parolee.domain.Parolee(1L, "Al", "Capone",
+                se325.example07.parolee.domain.Gender.MALE, "1899-01-17");
+    }
+
+    static se325.example08.parolee.domain.Parolee createJsonParolee() {
+        return new se325.example08.parolee.domain.Parolee(1L, "Al", "Capone",
+                se325.example08.parolee.domain.Gender.MALE, "1899-01-17");
+    }
+
+    static byte[] writeSerialized(SerializationMessageBodyReaderAndWriter serialization, Serializable o)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serialization.writeTo(o, o.getClass(), null, null,
+                SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT_TYPE, null, bytes);
+        return bytes.toByteArray();
+    }
+
+    static byte[] writeBinary(ParoleeBinaryReaderAndWriter binary, Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        binary.writeTo(o, o.getClass(), null, null,
+                ParoleeBinaryReaderAndWriter.APPLICATION_PAROLEE_BINARY_TYPE, null, bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,69 @@
+package se325.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se325.example05.parolee.domain.Gender;
+import se325.example05.parolee.domain.Parolee;
+import se325.example05.parolee.services.ParoleeJsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The request body of a POST or PUT to example 05's parolee service, parsed the way its
+ * <code>ParoleeResource.readParolee()</code> used to (a new ObjectMapper per request, reading a whole JsonNode tree)
+ * and the way it does now (a shared ObjectReader's streaming parser, through {@link ParoleeJsonReader}). Run with
+ * <code>-prof gc</code> and compare <code>gc.alloc.rate.norm</code> to see how many bytes each allocates per request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ParoleeParsingBenchmarks {
+
+    private final byte[] json = ("{ \"firstName\": \"Al\", \"lastName\": \"Capone\", \"gender\": \"MALE\", "
+            + "\"dateOfBirth\": \"1899-01-17\" }").getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public Parolee newMapperAndTree() throws IOException {
+        return readParoleeTree(new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public Parolee sharedReaderStreaming() throws IOException {
+        return ParoleeJsonReader.readParolee(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * A copy of example 05's original <code>ParoleeResource.readParolee()</code>.
+     */
+    static Parolee readParoleeTree(InputStream is) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode node = mapper.readTree(is);
+
+        Parolee parolee = new Parolee();
+        JsonNode idNode = node.get("id");
+        parolee.setId(idNode == null ? 0 : idNode.asLong());
+        parolee.setFirstName(node.get("firstName").asText());
+        parolee.setLastName(node.get("lastName").asText());
+        parolee.setGender(Gender.valueOf(node.get("gender").asText()));
+        parolee.setDateOfBirth(LocalDate.parse(node.get("dateOfBirth").asText()));
+
+        return parolee;
+    }
+}
@@ -0,0 +1,40 @@
+package se325.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import se325.example07.parolee.services.ParoleeBinaryReaderAndWriter;
+import se325.example07.parolee.services.SerializationMessageBodyReaderAndWriter;
+
+import java.io.IOException;
+
+/**
+ * Prints the number of bytes each of the benchmarked formats uses for each of the benchmarked objects. JMH measures
+ * time and (with <code>-prof gc</code>) allocation, but not payload size, so this complements its results.
+ * <p>
+ * Usage: <code>java -cp target/benchmarks.jar se325.benchmarks.PayloadSizes</code>
+ */
+public class PayloadSizes {
+
+    public static void main(String[] args) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+
+        System.out.printf("%-40s %8s%n", "Payload", "Bytes");
+        for (int teamSize : new int[]{2, 50}) {
+            print("Employee (team of " + teamSize + "), serialization",
+                    EmployeeBenchmarks.serialize(EmployeeBenchmarks.createEmployee(teamSize)));
+            print("Employee (team of " + teamSize + "), compact",
+                    EmployeeBenchmarks.encodeCompact(EmployeeBenchmarks.createEmployee(teamSize)));
+        }
+        print("Parolee, serialization", ParoleeBenchmarks.writeSerialized(
+                new SerializationMessageBodyReaderAndWriter(), ParoleeBenchmarks.createSerializationParolee()));
+        print("Parolee, binary", ParoleeBenchmarks.writeBinary(
+                new ParoleeBinaryReaderAndWriter(), ParoleeBenchmarks.createSerializationParolee()));
+        print("Parolee, JSON", mapper.writeValueAsBytes(ParoleeBenchmarks.createJsonParolee()));
+        print("Book, JSON", mapper.writeValueAsBytes(JacksonSampleBenchmarks.createBook()));
+        print("Zoo, JSON", mapper.writeValueAsBytes(JacksonSampleBenchmarks.createZoo()));
+        print("Teams, JSON", mapper.writeValueAsBytes(JacksonSampleBenchmarks.createTeams()));
+    }
+
+    private static void print(String name, byte[] payload) {
+        System.out.printf("%-40s %8d%n", name, payload.length);
+    }
+}
@@ -0,0 +1,97 @@
+package se325.benchmarks;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se325.example07.parolee.domain.Parolee;
+import se325.example07.parolee.services.SerializationMessageBodyReaderAndWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Example 07's response bodies, written the way its {@link SerializationMessageBodyReaderAndWriter} used to (straight
+ * to the entity stream with <code>SerializationUtils</code>, and no size) and the way it does now (into a pooled
+ * buffer, whose size is reported by <code>getSize()</code> before the whole buffer is written at once). The writer is
+ * called the way JAX-RS calls it, and the entity stream just counts the bytes and write calls it's given, so the time the
+ * network takes isn't included.
+ * <p>
+ * Bodies are lists of parolees, like the ones <code>GET /parolees</code> returns; <code>count</code> sets their size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SerializationWriterBenchmarks {
+
+    @Param({"1", "100", "1000"})
+    private int count;
+
+    private final SerializationMessageBodyReaderAndWriter serialization = new SerializationMessageBodyReaderAndWriter();
+
+    private ArrayList<Parolee> parolees;
+
+    @Setup
+    public void setUp() {
+        parolees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Parolee parolee = ParoleeBenchmarks.createSerializationParolee();
+            parolee.setId((long) i);
+            parolees.add(parolee);
+        }
+    }
+
+    @Benchmark
+    public CountingOutputStream serializationUtils() {
+        CountingOutputStream entityStream = new CountingOutputStream();
+        SerializationUtils.serialize(parolees, entityStream);
+        return entityStream;
+    }
+
+    @Benchmark
+    public CountingOutputStream pooledBuffer() throws IOException {
+        CountingOutputStream entityStream = new CountingOutputStream();
+        long size = serialization.getSize(parolees, ArrayList.class, null, null,
+                SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT_TYPE);
+        serialization.writeTo(parolees, ArrayList.class, null, null,
+                SerializationMessageBodyReaderAndWriter.APPLICATION_JAVA_SERIALIZED_OBJECT_TYPE, null, entityStream);
+        if (entityStream.bytes != size) {
+            throw new IllegalStateException("Wrote " + entityStream.bytes + " bytes, but the size was " + size);
+        }
+        return entityStream;
+    }
+
+    /**
+     * Stands in for a servlet container's response stream, which copies what it's given into its own buffer. Each
+     * write call costs something on top of the bytes it copies, so both are counted.
+     */
+    public static class CountingOutputStream extends OutputStream {
+        public long bytes;
+        public long writes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            writes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            writes++;
+        }
+    }
+}
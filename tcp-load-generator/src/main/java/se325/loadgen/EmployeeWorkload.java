@@ -0,0 +1,108 @@
+package se325.loadgen;
+
+import se325.example01.employees.Employee;
+import se325.example01.employees.EmployeeRequest;
+import se325.example01.employees.tcp.Server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends requests to <code>se325.example01.employees.tcp.Server</code>.
+ */
+public class EmployeeWorkload implements Workload {
+
+    private final boolean session;
+
+    /** The names to look up. Each request picks one at random. */
+    private final String[] names;
+
+    /**
+     * @param session if false, each request is sent on a new connection, in the same way as the example's
+     *                <code>Client</code>. If true, each session opens one connection, and sends all of its requests
+     *                over the same pair of object streams.
+     */
+    public EmployeeWorkload(boolean session, String... names) {
+        this.session = session;
+        this.names = names;
+    }
+
+    @Override
+    public Session openSession(InetSocketAddress server) throws IOException {
+        return session ? new StreamSession(server) : () -> sendOnNewConnection(server);
+    }
+
+    private void sendOnNewConnection(InetSocketAddress server) throws IOException {
+        try (Socket socket = new Socket(server.getAddress(), server.getPort())) {
+            /*
+             * Buffer the stream header and the request together, so they go out in one packet. Otherwise, Nagle's
+             * algorithm holds the request back until the server acknowledges the header, which can take 40ms.
+             */
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            String name = randomName();
+            out.writeObject(new EmployeeRequest(name));
+            out.flush();
+
+            ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+            readReply(in, name);
+        }
+    }
+
+    private String randomName() {
+        return names[ThreadLocalRandom.current().nextInt(names.length)];
+    }
+
+    private static void readReply(ObjectInputStream in, String name) throws IOException {
+        try {
+            if (in.readBoolean()) {
+                Employee employee = (Employee) in.readObject();
+                if (!employee.getName().equalsIgnoreCase(name)) {
+                    throw new IOException("Asked for " + name + " but got " + employee.getName());
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private class StreamSession implements Session {
+
+        private final Socket socket;
+        private final ObjectOutputStream out;
+        private final ObjectInputStream in;
+        private int requests;
+
+        StreamSession(InetSocketAddress server) throws IOException {
+            this.socket = new Socket(server.getAddress(), server.getPort());
+            this.out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.flush();
+            this.in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+        }
+
+        @Override
+        public void sendRequest() throws IOException {
+            // Stop our stream's handle table growing with every request we send
+            if (requests > 0 && requests % Server.DEFAULT_RESET_INTERVAL == 0) {
+                out.reset();
+            }
+
+            String name = randomName();
+            out.writeObject(new EmployeeRequest(name));
+            out.flush();
+            requests++;
+
+            readReply(in, name);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package se325.loadgen;
+
+/**
+ * A latency histogram in the style of HdrHistogram. Values are counted in logarithmically-sized buckets, each split
+ * into 64 linear sub-buckets, so any recorded value can be reported back to within about 1.6% of its true value,
+ * however large it is, using a small fixed amount of memory.
+ * <p>
+ * Histograms aren't thread-safe. Each thread should record into its own histogram, and the results should be combined
+ * with {@link #add(Histogram)} afterwards.
+ */
+public class Histogram {
+
+    /** Values smaller than this are counted exactly, one bucket per value. */
+    private static final int LINEAR_LIMIT = 128;
+
+    /** Every power-of-two range above {@link #LINEAR_LIMIT} is split into this many sub-buckets. */
+    private static final int SUB_BUCKETS = 64;
+
+    /** Enough buckets to hold any non-negative long. */
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - 7) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Records a single value, which must not be negative.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        counts[bucketOf(value)]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all the values recorded by another histogram to this one.
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return totalCount == 0 ? 0 : max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Gets the value at the given percentile, i.e. the smallest value such that at least <code>percentile</code>% of
+     * recorded values are no greater than it. As with HdrHistogram, the highest value which falls into the same bucket
+     * is reported.
+     *
+     * @param percentile a percentile between 0 and 100.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestValueIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Works out which bucket a value belongs to. Values below {@link #LINEAR_LIMIT} get a bucket each. Above that, we
+     * keep only a value's 7 most significant bits (the leading one bit, plus 6 bits choosing one of 64 sub-buckets), and
+     * use how far the value had to be shifted to get there to choose the power-of-two range.
+     */
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * The reverse of {@link #bucketOf(long)}: the largest value which would be counted in the given bucket.
+     */
+    static long highestValueIn(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
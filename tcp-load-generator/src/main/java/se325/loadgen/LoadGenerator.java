@@ -0,0 +1,212 @@
+package se325.loadgen;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives one of the socket servers from examples 01 and 02 with a configurable amount of load, and reports the
+ * throughput and latency distribution it sees.
+ * <p>
+ * Usage: <code>LoadGenerator --port &lt;port&gt; [option value]...</code>, where the options are:
+ * <ul>
+ *     <li><code>--workload</code>: <code>multiply</code> (the default) or <code>multiply-keepalive</code> to talk to
+ *     <code>basictcp.Server</code> or <code>NioServer</code>, or <code>employees</code> or
+ *     <code>employees-session</code> to talk to <code>employees.tcp.Server</code>.</li>
+ *     <li><code>--host</code>: the server's address. Defaults to <code>localhost</code>.</li>
+ *     <li><code>--connections</code>: how many simulated clients to run at once. Defaults to 16.</li>
+ *     <li><code>--rate</code>: the total number of requests per second to send, shared between all the clients. The
+ *     default, 0, means that each client sends its next request as soon as it gets a reply to the last one.</li>
+ *     <li><code>--duration</code>: how many seconds to measure for. Defaults to 30.</li>
+ *     <li><code>--warmup</code>: how many seconds to run for before starting to measure, giving the server's JIT
+ *     compiler a chance to do its job. Defaults to 5.</li>
+ * </ul>
+ * When a rate is given, each request's latency is measured from when it <em>should</em> have been sent, rather than
+ * when it actually was. Otherwise, a server which stalls would hold up our clients too, and we'd simply send fewer
+ * requests during the stall instead of recording how slow they were (this is known as <em>coordinated omission</em>).
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parseOptions(args);
+
+        if (!options.containsKey("port")) {
+            System.out.println("Usage: LoadGenerator --port <port> [--workload multiply|multiply-keepalive|employees|employees-session]"
+                    + " [--host <host>] [--connections <n>] [--rate <requests/s>] [--duration <s>] [--warmup <s>]");
+            return;
+        }
+
+        String workloadName = options.getOrDefault("workload", "multiply");
+        InetSocketAddress server = new InetSocketAddress(options.getOrDefault("host", "localhost"),
+                Integer.parseInt(options.get("port")));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "16"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+
+        Workload workload = createWorkload(workloadName);
+
+        System.out.println("Running " + workloadName + " against " + server + " with " + connections
+                + " connections, " + (rate > 0 ? rate + " requests/s" : "unlimited rate") + ", for "
+                + warmup + "s warm-up + " + duration + "s");
+
+        /* Space each client's requests out so that, between them, they send the requested rate. */
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * connections / rate) : 0;
+        long startTime = System.nanoTime();
+        long measureFrom = startTime + TimeUnit.SECONDS.toNanos(warmup);
+        long endTime = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Worker worker = new Worker(workload, server, intervalNanos, startTime, measureFrom, endTime);
+            Thread thread = new Thread(worker, "load-generator-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(worker);
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        /* Each worker kept its own histogram, so they never had to coordinate. Combine them now. */
+        Histogram latencies = new Histogram();
+        long errors = 0;
+        for (Worker worker : workers) {
+            latencies.add(worker.latencies);
+            errors += worker.errors;
+        }
+
+        printReport(latencies, errors, duration);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option, but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static Workload createWorkload(String name) {
+        switch (name) {
+            case "multiply":
+                return new MultiplyWorkload(false);
+            case "multiply-keepalive":
+                return new MultiplyWorkload(true);
+            case "employees":
+                // "Nobody" isn't in the server's directory, so both kinds of reply get exercised.
+                return new EmployeeWorkload(false, "David", "Tim", "Gareth", "Nobody");
+            case "employees-session":
+                return new EmployeeWorkload(true, "David", "Tim", "Gareth", "Nobody");
+            default:
+                throw new IllegalArgumentException("Unknown workload: " + name);
+        }
+    }
+
+    private static void printReport(Histogram latencies, long errors, int duration) {
+        System.out.println();
+        System.out.println("Requests:    " + latencies.getTotalCount() + " (" + errors + " errors)");
+        System.out.printf("Throughput:  %.1f requests/s%n", (double) latencies.getTotalCount() / duration);
+        System.out.println("Latency (us):");
+        System.out.printf("    mean     %10.1f%n", latencies.getMean() / 1000);
+        System.out.printf("    min      %10.1f%n", latencies.getMin() / 1000.0);
+        System.out.printf("    p50      %10.1f%n", latencies.getValueAtPercentile(50) / 1000.0);
+        System.out.printf("    p90      %10.1f%n", latencies.getValueAtPercentile(90) / 1000.0);
+        System.out.printf("    p99      %10.1f%n", latencies.getValueAtPercentile(99) / 1000.0);
+        System.out.printf("    p99.9    %10.1f%n", latencies.getValueAtPercentile(99.9) / 1000.0);
+        System.out.printf("    max      %10.1f%n", latencies.getMax() / 1000.0);
+    }
+
+    /**
+     * One simulated client. Sends requests until the run is over, recording the latency of each one which completes
+     * after the warm-up period.
+     */
+    private static class Worker implements Runnable {
+
+        private final Workload workload;
+        private final InetSocketAddress server;
+        private final long intervalNanos;
+        private final long startTime;
+        private final long measureFrom;
+        private final long endTime;
+
+        private final Histogram latencies = new Histogram();
+        private long errors;
+
+        Worker(Workload workload, InetSocketAddress server, long intervalNanos, long startTime, long measureFrom,
+               long endTime) {
+            this.workload = workload;
+            this.server = server;
+            this.intervalNanos = intervalNanos;
+            this.startTime = startTime;
+            this.measureFrom = measureFrom;
+            this.endTime = endTime;
+        }
+
+        @Override
+        public void run() {
+            Workload.Session session = null;
+            long nextStart = startTime;
+
+            while (true) {
+                long start;
+                if (intervalNanos > 0) {
+                    start = nextStart;
+                    nextStart += intervalNanos;
+                    LockSupport.parkNanos(start - System.nanoTime());
+                } else {
+                    start = System.nanoTime();
+                }
+
+                /* Stop on time even if we've fallen behind schedule, so the throughput we report is accurate. */
+                if (start >= endTime || System.nanoTime() >= endTime) {
+                    break;
+                }
+
+                boolean ok = true;
+                try {
+                    if (session == null) {
+                        session = workload.openSession(server);
+                    }
+                    session.sendRequest();
+                } catch (IOException e) {
+                    ok = false;
+                    closeQuietly(session);
+                    session = null;
+                }
+
+                if (start >= measureFrom) {
+                    if (ok) {
+                        latencies.record(System.nanoTime() - start);
+                    } else {
+                        errors++;
+                    }
+                }
+            }
+
+            closeQuietly(session);
+        }
+
+        private static void closeQuietly(Workload.Session session) {
+            if (session == null) {
+                return;
+            }
+            try {
+                session.close();
+            } catch (IOException e) {
+                // We're finished with the session anyway.
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package se325.loadgen;
+
+import se325.example01.basictcp.MultiplyProtocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends requests to <code>se325.example01.basictcp.Server</code> or <code>NioServer</code>.
+ */
+public class MultiplyWorkload implements Workload {
+
+    private final boolean keepAlive;
+
+    /**
+     * @param keepAlive if false, each request is sent on a new connection, in the same way as the example's
+     *                  <code>Client</code>. If true, each session opens one connection using the framed protocol, and
+     *                  sends all of its requests over it.
+     */
+    public MultiplyWorkload(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public Session openSession(InetSocketAddress server) throws IOException {
+        return keepAlive ? new KeepAliveSession(server) : () -> sendOnNewConnection(server);
+    }
+
+    private static void sendOnNewConnection(InetSocketAddress server) throws IOException {
+        try (Socket socket = new Socket(server.getAddress(), server.getPort())) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            int x = ThreadLocalRandom.current().nextInt(1000);
+            int y = ThreadLocalRandom.current().nextInt(1000);
+            out.writeInt(x);
+            out.writeInt(y);
+            out.flush();
+
+            checkProduct(x, y, in.readInt());
+        }
+    }
+
+    private static void checkProduct(int x, int y, int product) throws IOException {
+        if (product != x * y) {
+            throw new IOException("Wrong answer: " + x + " * " + y + " != " + product);
+        }
+    }
+
+    private static class KeepAliveSession implements Session {
+
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        KeepAliveSession(InetSocketAddress server) throws IOException {
+            this.socket = new Socket(server.getAddress(), server.getPort());
+            this.socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(MultiplyProtocol.PREAMBLE);
+        }
+
+        @Override
+        public void sendRequest() throws IOException {
+            int x = ThreadLocalRandom.current().nextInt(1000);
+            int y = ThreadLocalRandom.current().nextInt(1000);
+            out.writeByte(MultiplyProtocol.TYPE_MULTIPLY | MultiplyProtocol.KEEP_ALIVE);
+            out.writeInt(x);
+            out.writeInt(y);
+            out.flush();
+
+            checkProduct(x, y, in.readInt());
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package se325.loadgen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * A kind of request which the {@link LoadGenerator} can send to a server.
+ */
+public interface Workload {
+
+    /**
+     * Creates the state needed by one simulated client. Each of the load generator's connections gets its own session,
+     * which is only ever used by one thread.
+     */
+    Session openSession(InetSocketAddress server) throws IOException;
+
+    interface Session extends Closeable {
+
+        /**
+         * Sends one request and waits for its reply. Depending on the workload, this may open (and close) a new
+         * connection for each request, or reuse one connection for the whole session.
+         */
+        void sendRequest() throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package se325.loadgen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestHistogram {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getTotalCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.0001);
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testLargeValuesAreWithinPrecision() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 1_000_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        // Every bucket is at most 1/64th as wide as the values in it.
+        long p50 = histogram.getValueAtPercentile(50);
+        long p999 = histogram.getValueAtPercentile(99.9);
+        assertTrue(p50 >= 500_000_000L && p50 <= 500_000_000L * 65 / 64);
+        assertTrue(p999 >= 999_000_000L && p999 <= 999_000_000L * 65 / 64);
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        // Each bucket's range must start just after the previous one's ends.
+        long previousHighest = -1;
+        for (int bucket = 0; Histogram.highestValueIn(bucket) != Long.MAX_VALUE; bucket++) {
+            long highest = Histogram.highestValueIn(bucket);
+            assertEquals(bucket, Histogram.bucketOf(previousHighest + 1));
+            assertEquals(bucket, Histogram.bucketOf(highest));
+            previousHighest = highest;
+        }
+        assertEquals(Histogram.bucketOf(Long.MAX_VALUE), Histogram.bucketOf(previousHighest + 1));
+    }
+
+    @Test
+    public void testAdd() {
+        Histogram a = new Histogram();
+        Histogram b = new Histogram();
+        a.record(10);
+        b.record(20);
+        b.record(30);
+
+        a.add(b);
+
+        assertEquals(3, a.getTotalCount());
+        assertEquals(10, a.getMin());
+        assertEquals(30, a.getMax());
+        assertEquals(20, a.getValueAtPercentile(50));
+    }
+}